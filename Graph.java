@@ -0,0 +1,268 @@
+/**
+* @author Nolan Orloff
+*
+* compact adjacency representation of a weighted graph
+* the outgoing edges of vertex v are stored at indices offsets[v] to offsets[v + 1] - 1
+* of the targets and weights arrays, so the edges leaving a vertex are contiguous
+* in memory and can be scanned without looking at the rest of the graph
+*
+* edges with a weight of 0 are skipped, matching the table representation
+* in HW8Serial where a 0 cell means there is no edge
+*
+* a graph can be relabeled so that vertices that are close in the graph are
+* close in memory, see Reorder.java
+* a relabeled graph remembers the id each vertex had in the input file,
+* and code that takes ids from or gives ids to callers translates them
+* with original() and internal()
+*
+* @see Data.java
+*/
+
+import java.util.List;
+import java.io.*;
+
+class Graph {
+    // number of vertices in the graph
+    public final int n;
+
+    // index of the first outgoing edge of each vertex, with one extra entry at the end
+    public final int[] offsets;
+
+    // destination vertex of each edge
+    public final int[] targets;
+
+    // cost of traversing each edge
+    public final int[] weights;
+
+    // id in the input file of each vertex, or null if the graph was not relabeled
+    private final int[] ids;
+
+    // vertex for each id in the input file, or null if the graph was not relabeled
+    private final int[] index;
+
+    /**
+    * initialize the graph from its adjacency arrays
+    *
+    * @param n number of vertices in the graph
+    * @param offsets index of the first outgoing edge of each vertex
+    * @param targets destination vertex of each edge
+    * @param weights cost of traversing each edge
+    */
+    public Graph(int n, int[] offsets, int[] targets, int[] weights) {
+        this(n, offsets, targets, weights, null);
+    }
+
+    /**
+    * initialize a relabeled graph from its adjacency arrays
+    *
+    * @param n number of vertices in the graph
+    * @param offsets index of the first outgoing edge of each vertex
+    * @param targets destination vertex of each edge
+    * @param weights cost of traversing each edge
+    * @param ids id in the input file of each vertex, or null if not relabeled
+    */
+    public Graph(int n, int[] offsets, int[] targets, int[] weights, int[] ids) {
+        this.n = n;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.ids = ids;
+        if (ids == null) {
+            this.index = null;
+        } else {
+            this.index = new int[n];
+            for (int i = 0; i < n; i++) {
+                index[ids[i]] = i;
+            }
+        }
+    }
+
+    /**
+    * build the adjacency representation from a list of edges
+    *
+    * @param edges list of edges read from supplied file
+    * @param num_nodes number of nodes in the graph
+    *
+    * @return graph containing every edge with a positive weight
+    */
+    public static Graph fromEdges(List<Data.Edge> edges, int num_nodes) {
+        int[] offsets = new int[num_nodes + 1];
+        for (Data.Edge e : edges) {
+            if (e.weight > 0) offsets[e.start + 1]++;
+        }
+        for (int i = 0; i < num_nodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = new int[num_nodes];
+        for (int i = 0; i < num_nodes; i++) {
+            next[i] = offsets[i];
+        }
+        int[] targets = new int[offsets[num_nodes]];
+        int[] weights = new int[offsets[num_nodes]];
+        for (Data.Edge e : edges) {
+            if (e.weight > 0) {
+                targets[next[e.start]] = e.end;
+                weights[next[e.start]] = e.weight;
+                next[e.start]++;
+            }
+        }
+        return new Graph(num_nodes, offsets, targets, weights);
+    }
+
+    /**
+    * read the graph from the supplied file
+    *
+    * @return the graph in HW8.FILENAME
+    */
+    public static Graph load() throws IOException, ClassNotFoundException {
+        List<Data.Edge> edges = HW8.getObservations();
+        return fromEdges(edges, HW8.n_nodes);
+    }
+
+    /**
+    * read the graph from the supplied file and relabel it for locality
+    *
+    * @param order name of the vertex order to use, see Reorder.order
+    *
+    * @return the graph in HW8.FILENAME
+    */
+    public static Graph load(String order) throws IOException, ClassNotFoundException {
+        Graph graph = load();
+        if (order.equals(Reorder.NONE)) return graph;
+        return graph.relabel(Reorder.order(graph, order));
+    }
+
+    /**
+    * get a copy of this graph with its vertices renumbered
+    *
+    * @param order the vertex in this graph to place at each new position
+    *
+    * @return the relabeled graph, which still knows the input file's ids
+    */
+    public Graph relabel(int[] order) {
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[order[i]] = i;
+        }
+        int[] newOffsets = new int[n + 1];
+        int[] newTargets = new int[targets.length];
+        int[] newWeights = new int[weights.length];
+        int[] newIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            int old = order[i];
+            newIds[i] = original(old);
+            newOffsets[i + 1] = newOffsets[i] + degree(old);
+            int next = newOffsets[i];
+            for (int j = offsets[old]; j < offsets[old + 1]; j++) {
+                newTargets[next] = position[targets[j]];
+                newWeights[next] = weights[j];
+                next++;
+            }
+        }
+        return new Graph(n, newOffsets, newTargets, newWeights, newIds);
+    }
+
+    /**
+    * get a copy of this graph with every edge pointing the other way
+    * vertex ids are unchanged
+    *
+    * @return the reversed graph
+    */
+    public Graph reverse() {
+        int[] newOffsets = new int[n + 1];
+        for (int i = 0; i < targets.length; i++) {
+            newOffsets[targets[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            newOffsets[i + 1] += newOffsets[i];
+        }
+        int[] next = new int[n];
+        for (int i = 0; i < n; i++) {
+            next[i] = newOffsets[i];
+        }
+        int[] newTargets = new int[targets.length];
+        int[] newWeights = new int[weights.length];
+        for (int v = 0; v < n; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                newTargets[next[targets[i]]] = v;
+                newWeights[next[targets[i]]] = weights[i];
+                next[targets[i]]++;
+            }
+        }
+        return new Graph(n, newOffsets, newTargets, newWeights, ids);
+    }
+
+    /**
+    * get the id a vertex had in the input file
+    *
+    * @param node a vertex in this graph
+    *
+    * @return the caller-facing id of the vertex
+    */
+    public int original(int node) {
+        return ids == null ? node : ids[node];
+    }
+
+    /**
+    * get the vertex in this graph for an id from the input file
+    *
+    * @param id the caller-facing id of the vertex
+    *
+    * @return the vertex in this graph
+    */
+    public int internal(int id) {
+        return index == null ? id : index[id];
+    }
+
+    /**
+    * get a hash of the graph's vertices and edges
+    * edges are hashed with their ids from the input file and the hashes are
+    * added together, so relabeling the graph or storing its edges in a
+    * different order does not change the fingerprint
+    *
+    * @return a value that changes whenever an edge or weight changes
+    */
+    public long fingerprint() {
+        long out = mix(n);
+        for (int v = 0; v < n; v++) {
+            long from = (long) original(v) << 32;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                out += mix(mix(from | original(targets[i])) ^ weights[i]);
+            }
+        }
+        return out;
+    }
+
+    /**
+    * scramble the bits of a value (the splitmix64 finalizer)
+    *
+    * @param z the value to scramble
+    *
+    * @return a well-mixed hash of the value
+    */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+    * get the number of edges in the graph
+    *
+    * @return number of edges
+    */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+    * get the number of edges leaving a vertex
+    *
+    * @param node the source vertex
+    *
+    * @return number of outgoing edges
+    */
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+}
@@ -9,6 +9,8 @@
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.io.*;
 
 
@@ -146,12 +148,31 @@ class HW8 {
          *         cost of the path
         */
         public String toString() {
-            String out = "";
+            StringWriter out = new StringWriter();
+            try {
+                write(out);
+            } catch (IOException e) {
+                // a StringWriter does not throw
+            }
+            return out.toString();
+        }
+
+        /**
+         * write the same representation as toString to a stream
+         * without building the whole string first
+         *
+         * @param out the stream to write to
+        */
+        public void write(Writer out) throws IOException {
             for (int i = 1; i < edges.size(); i++) {
-                out += "{" + edges.get(i).start + ", " + edges.get(i).end + "} ";
+                out.write("{");
+                out.write(Integer.toString(edges.get(i).start));
+                out.write(", ");
+                out.write(Integer.toString(edges.get(i).end));
+                out.write("} ");
             }
-            out += "Cost: " + cost();
-            return out;
+            out.write("Cost: ");
+            out.write(Integer.toString(cost()));
         }
     }
 
@@ -168,15 +189,22 @@ class HW8 {
     *         the list of paths does not have a path that ends at this path's end node
     *         this path costs less than a path in the list with the same end node
     *     add or replace the new path in the list
+    * paths that cost more than the radius are never added, so a bounded
+    * query only keeps the part of the tree within that cost of the root
+    * the radius only prunes: every tally still holds an edge table and path
+    * list sized for the whole graph, so the work is not proportional to the
+    * part that is kept
     * 
     * @param edges table of known edges
     * @param paths list of known shortest paths
     * @param start the root node for the shortest-path tree
+    * @param radius the highest path cost to keep
     */
     public static class Dijkstras implements Tally<Data.Edge>, Cloneable {
         private int[][] edges;
         private List<Path> paths;
         private int start;
+        private int radius;
 
         /**
         * initialize the object 
@@ -185,7 +213,19 @@ class HW8 {
         * @param num_nodes number of nodes in the graph
         */
         public Dijkstras(int start, int num_nodes) {
+            this(start, num_nodes, Integer.MAX_VALUE);
+        }
+
+        /**
+        * initialize the object for a radius-bounded query
+        *
+        * @param start root node for the shortest-path tree
+        * @param num_nodes number of nodes in the graph
+        * @param radius the highest path cost to keep
+        */
+        public Dijkstras(int start, int num_nodes, int radius) {
             this.start = start;
+            this.radius = radius;
             this.edges = new int[num_nodes][num_nodes];
             this.paths = new ArrayList<Path>();
             this.paths.add(new Path(new Data.Edge(start, start, 0)));
@@ -197,9 +237,9 @@ class HW8 {
         * @return unique object with same edges and paths
         */
         public Dijkstras clone() {
-            Dijkstras other = new Dijkstras(start, edges.length);
+            Dijkstras other = new Dijkstras(start, edges.length, radius);
             for (int row = 0; row < this.edges.length; row++) {
-                for (int col = 0; col < this.edges.length; row++) {
+                for (int col = 0; col < this.edges.length; col++) {
                     other.edges[row][col] = this.edges[row][col];
                 }
             }
@@ -215,11 +255,26 @@ class HW8 {
         */
         @Override
         public String toString() {
-            String out = "";
+            StringWriter out = new StringWriter();
+            try {
+                write(out);
+            } catch (IOException e) {
+                // a StringWriter does not throw
+            }
+            return out.toString();
+        }
+
+        /**
+        * write the same representation as toString to a stream,
+        * one path at a time
+        *
+        * @param out the stream to write to
+        */
+        public void write(Writer out) throws IOException {
             for (int i = 1; i < paths.size(); i++) {
-                out += paths.get(i).toString() + "\n";
+                paths.get(i).write(out);
+                out.write("\n");
             }
-            return out;
         }
 
         /**
@@ -231,6 +286,35 @@ class HW8 {
             return new ArrayList<Path>(paths);
         }
 
+        /**
+        * get the weight of an edge this object knows about
+        *
+        * @param start the vertex the edge leaves
+        * @param end the vertex the edge enters
+        *
+        * @return the weight of the edge, or 0 if it is not known
+        */
+        public int getEdge(int start, int end) {
+            return edges[start][end];
+        }
+
+        /**
+        * get the known paths to the vertices closest to the root
+        *
+        * @param k the number of paths to return
+        *
+        * @return up to k of the cheapest paths, cheapest first, without the identity path
+        */
+        public List<Path> nearest(int k) {
+            List<Path> out = new ArrayList<Path>(paths.subList(1, paths.size()));
+            Collections.sort(out, new Comparator<Path>() {
+                public int compare(Path left, Path right) {
+                    return left.cost() - right.cost();
+                }
+            });
+            return out.subList(0, Math.min(k, out.size()));
+        }
+
         /**
         * This method acts as a factory to create new objects of the same type.
         *
@@ -238,7 +322,7 @@ class HW8 {
         */
         @Override
         public Dijkstras init() {
-            return new Dijkstras(start, edges.length);
+            return new Dijkstras(start, edges.length, radius);
         }
 
         /**
@@ -248,6 +332,7 @@ class HW8 {
         */
         @Override
         public void accum(Data.Edge elem) {
+            if (elem.weight == 0) return;       // a 0 in the table means there is no edge
             edges[elem.start][elem.end] = elem.weight;
             updatePaths(elem);
         }
@@ -262,40 +347,40 @@ class HW8 {
         @Override
         public void combine(Tally<Data.Edge> other){
             Dijkstras right = (Dijkstras) other;
+            int[] cols = new int[right.edges.length];
             for (int i = 0; i < right.edges.length; i++) {
-                for (int j = 0; j < right.edges.length; j++) {
-                    if (this.edges[i][j] == 0 && right.edges[i][j] != 0)
-                        accum(new Data.Edge(i, j, right.edges[i][j]));
+                int count = Kernels.get().missing(this.edges[i], right.edges[i], cols);
+                for (int k = 0; k < count; k++) {
+                    accum(new Data.Edge(i, cols[k], right.edges[i][cols[k]]));
                 }
             }
         }
         /**
         * look for new shortest paths that end at the new edge
+        * whenever the path to a vertex gets cheaper, the known edges leaving
+        * that vertex are looked at again, so paths that were built on the
+        * old path, or edges that arrived before any path to their start, are
+        * brought up to date
         *
         * @param newEdge a new edge that was just added to the graph
         */
         private void updatePaths(Data.Edge newEdge) {
-            Path head = getPathWithEnd(newEdge.start);
-            if (head.size() > 0) {
-                Path newPath = head.add(newEdge);
-                Path oldPath = getPathWithEnd(newEdge.end);
-                if (oldPath.size() > 0 && newPath.cost() < oldPath.cost()) {
-                    paths.remove(oldPath);
-                    paths.add(newPath);
-                    List<Path> toUpdate = getPathsContains(newEdge.end);
-                    for (Path old : toUpdate) {
-                        List<Data.Edge> edges = old.getEdges();
-                        int i = edges.indexOf(findEdgeWithEnd(edges, newEdge.end));
-                        if (i >= 0) {
-                            edges = edges.subList(i, edges.size());
-                            edges.addAll(0, newPath.getEdges());
-                            paths.remove(old);
-                            paths.add(new Path(edges));
-                        }
-                    }
+            List<Data.Edge> pending = new ArrayList<Data.Edge>();
+            pending.add(newEdge);
+            while (pending.size() > 0) {
+                Data.Edge next = pending.remove(pending.size() - 1);
+                Path head = getPathWithEnd(next.start);
+                if (head.size() == 0) continue;
+                Path newPath = head.add(next);
+                if (newPath.cost() > radius) continue;
+                Path oldPath = getPathWithEnd(next.end);
+                if (oldPath.size() > 0 && newPath.cost() >= oldPath.cost()) continue;
+                paths.remove(oldPath);
+                paths.add(newPath);
+                for (int j = 0; j < edges.length; j++) {
+                    if (edges[next.end][j] != 0)
+                        pending.add(new Data.Edge(next.end, j, edges[next.end][j]));
                 }
-                else if (oldPath.size() == 0)
-                    paths.add(newPath);
             }
         }
 
@@ -313,38 +398,6 @@ class HW8 {
             }
             return new Path();
         }
-
-        /**
-        * get all the paths that contain the specified vertex
-        *
-        * @param node the vertex to search for
-        *
-        * @return the set of paths that contain the vertex
-        */
-        private List<Path> getPathsContains(int node) {
-            List<Path> out = new ArrayList<Path>();
-            for (Path i : paths) {
-                if (i.contains(node))
-                    out.add(i);
-            }
-            return out;
-        }
-
-        /**
-        * get the index of the edge in a list of edges that ends at the specified node
-        *
-        * @param edges the set of edges to search
-        * @param node the vertex to search for
-        *
-        * @return the index of the edge or -1 if no edge ends at the vertex
-        */
-        private int findEdgeWithEnd(List<Data.Edge> edges, int node) {
-            for (int i = 0; i < edges.size(); i++) {
-                if (edges.get(i).end == node)
-                    return i;
-            }
-            return -1;
-        }
     }
 
     /**
@@ -367,13 +420,36 @@ class HW8 {
 
     /**
     * calculate and print the shortest-path tree for the graph in the supplied file
+    * with "-r <radius>" only vertices within that cost of the root are kept
+    * with "-k <count>" only that many of the closest vertices are printed
+    *     the reduction has no settling order to stop on, so it always builds
+    *     the full tables and sorts what it kept; without a radius a warning
+    *     says so, since only HW8Heap stops once the closest are settled
     *
-    * @param arg unused
+    * @param args optional bounds on the search
     */
     public static void main(String[] args) throws FileNotFoundException, InterruptedException, IOException, ClassNotFoundException {
+        int radius = Integer.MAX_VALUE;
+        int k = -1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-r")) radius = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-k")) k = Integer.parseInt(args[i + 1]);
+        }
+        if (k >= 0 && radius == Integer.MAX_VALUE)
+            System.err.println("warning: -k without -r solves the whole graph before picking the closest "
+                + k + "; use HW8Heap -k to stop early, or add -r to keep less");
         List<Data.Edge> obs = getObservations();
-        Dijkstras factory = new Dijkstras(START_NODE, n_nodes);
+        Dijkstras factory = new Dijkstras(START_NODE, n_nodes, radius);
         Dijkstras reduction = (Dijkstras) new Reduce(obs, NUM_THREADS, factory).reduce();
-        System.out.println(reduction);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        if (k < 0) {
+            reduction.write(out);
+        } else {
+            for (Path p : reduction.nearest(k)) {
+                p.write(out);
+                out.write("\n");
+            }
+        }
+        out.flush();
     }
 }
\ No newline at end of file
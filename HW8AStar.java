@@ -0,0 +1,585 @@
+/**
+* @author Nolan Orloff
+*
+* point-to-point shortest paths with A* search and ALT heuristics
+* (A*, landmarks, triangle inequality)
+*
+* a few landmark vertices are chosen ahead of time, and the distances from
+* every landmark to every vertex and from every vertex to every landmark are
+* precomputed with HW8Heap; by the triangle inequality, for a landmark L
+*     d(v, t) >= d(L, t) - d(L, v)   and   d(v, t) >= d(v, L) - d(t, L)
+* so the largest of these over all landmarks is a lower bound on the distance
+* left to the destination, which steers the search towards it
+*
+* prints the path and how many vertices A* settled compared with Dijkstra's
+* algorithm stopped at the same destination
+*
+* @see HW8Heap.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.io.*;
+
+class HW8AStar {
+    // number of landmarks to choose
+    public static final int NUM_LANDMARKS = 8;
+
+    // number of random queries to compare when no query is given
+    public static final int NUM_QUERIES = 200;
+
+    // pick each landmark as far as possible from the ones already picked
+    public static final String FARTHEST = "farthest";
+
+    // pick each landmark at the end of the part of a shortest-path tree
+    // that the current landmarks cover worst
+    public static final String AVOID = "avoid";
+
+    // first four bytes of every landmark file, "ALT1"
+    public static final int MAGIC = 0x414c5431;
+
+    // layout version, bumped whenever the layout changes
+    public static final int VERSION = 1;
+
+    /**
+    * landmark distance tables
+    * tables are indexed by the ids from the input file, and are either plain
+    * arrays after building or views of a memory-mapped file after loading
+    *
+    * the file layout is, all big-endian:
+    *     int  MAGIC
+    *     int  VERSION
+    *     long fingerprint of the graph, see Graph.fingerprint
+    *     int  number of vertices
+    *     int  number of landmarks
+    *     int  id of each landmark
+    *     for each landmark, int distance from it to each vertex
+    *     then int distance from each vertex to it
+    *
+    * @param nodes the landmark vertices
+    * @param from distance from each landmark to each vertex
+    * @param to distance from each vertex to each landmark
+    */
+    public static class Landmarks {
+        private final int[] nodes;
+        private final IntBuffer[] from;
+        private final IntBuffer[] to;
+
+        /**
+        * initialize the object
+        *
+        * @param nodes the landmark vertices
+        * @param from distance from each landmark to each vertex
+        * @param to distance from each vertex to each landmark
+        */
+        public Landmarks(int[] nodes, IntBuffer[] from, IntBuffer[] to) {
+            this.nodes = nodes;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+        * get the number of landmarks
+        *
+        * @return number of landmarks
+        */
+        public int size() {
+            return nodes.length;
+        }
+
+        /**
+        * get a landmark
+        *
+        * @param i which landmark
+        *
+        * @return the landmark vertex
+        */
+        public int node(int i) {
+            return nodes[i];
+        }
+
+        /**
+        * get the distance from a landmark to a vertex
+        *
+        * @param i which landmark
+        * @param node the vertex
+        *
+        * @return the distance or HW8Heap.INFINITY if the vertex can't be reached
+        */
+        public int from(int i, int node) {
+            return from[i].get(node);
+        }
+
+        /**
+        * get the distance from a vertex to a landmark
+        *
+        * @param i which landmark
+        * @param node the vertex
+        *
+        * @return the distance or HW8Heap.INFINITY if the landmark can't be reached
+        */
+        public int to(int i, int node) {
+            return to[i].get(node);
+        }
+
+        /**
+        * get a lower bound on the distance between two vertices
+        *
+        * @param node the vertex to start from
+        * @param end the destination vertex
+        *
+        * @return a lower bound, 0 if the landmarks say nothing about this pair
+        */
+        public int estimate(int node, int end) {
+            int best = 0;
+            for (int i = 0; i < nodes.length; i++) {
+                best = Math.max(best, bound(from(i, end), from(i, node)));
+                best = Math.max(best, bound(to(i, node), to(i, end)));
+            }
+            return best;
+        }
+
+        /**
+        * choose landmarks and compute their distance tables
+        *
+        * @param graph the graph
+        * @param count number of landmarks to choose
+        * @param strategy FARTHEST or AVOID
+        *
+        * @return the landmarks
+        */
+        public static Landmarks build(Graph graph, int count, String strategy) {
+            if (!strategy.equals(FARTHEST) && !strategy.equals(AVOID))
+                throw new IllegalArgumentException("unknown landmark strategy \"" + strategy + "\"");
+            count = Math.min(count, graph.n);
+            HW8Heap.Search forward = new HW8Heap.Search(graph);
+            HW8Heap.Search backward = new HW8Heap.Search(graph.reverse());
+            Random rand = new Random(0);
+            int[] nodes = new int[count];
+            IntBuffer[] from = new IntBuffer[count];
+            IntBuffer[] to = new IntBuffer[count];
+            Landmarks out = new Landmarks(new int[0], from, to);
+
+            // round-trip distance from each vertex to its closest landmark
+            long[] gap = new long[graph.n];
+            Arrays.fill(gap, Long.MAX_VALUE);
+            forward.solve(graph.original(0));
+            int[] seed = forward.tree().dist;
+
+            for (int l = 0; l < count; l++) {
+                int next = -1;
+                if (strategy.equals(AVOID))
+                    next = avoid(out, forward, graph.original(rand.nextInt(graph.n)));
+                if (next < 0)
+                    next = farthest(l == 0 ? seed : null, gap, nodes, l);
+                nodes[l] = next;
+                forward.solve(next);
+                from[l] = IntBuffer.wrap(forward.tree().dist);
+                backward.solve(next);
+                to[l] = IntBuffer.wrap(backward.tree().dist);
+                for (int v = 0; v < graph.n; v++) {
+                    // a leg that can't be travelled adds nothing, so a vertex on
+                    // only one side of the landmark still gets a finite gap
+                    long trip = -1;
+                    if (from[l].get(v) != HW8Heap.INFINITY) trip = from[l].get(v);
+                    if (to[l].get(v) != HW8Heap.INFINITY) trip = Math.max(trip, 0) + to[l].get(v);
+                    if (trip >= 0) gap[v] = Math.min(gap[v], trip);
+                }
+                out = new Landmarks(Arrays.copyOf(nodes, l + 1), from, to);
+            }
+            return out;
+        }
+
+        /**
+        * pick the vertex furthest from every landmark chosen so far
+        * only vertices with a finite distance are considered, since a vertex
+        * that can't be reached gives no bound; if there are none, the first
+        * vertex not already chosen is used
+        *
+        * @param seed distance from an arbitrary vertex, used for the first landmark
+        * @param gap round-trip distance from each vertex to its closest landmark,
+        *     counting only the legs that exist; Long.MAX_VALUE if it is cut off
+        *     from all of them
+        * @param nodes landmarks chosen so far
+        * @param count number of landmarks chosen so far
+        *
+        * @return the vertex to use as the next landmark
+        */
+        private static int farthest(int[] seed, long[] gap, int[] nodes, int count) {
+            int best = -1;
+            long bestGap = -1;
+            int fallback = -1;
+            for (int v = 0; v < gap.length; v++) {
+                boolean taken = false;
+                for (int i = 0; i < count; i++) {
+                    if (nodes[i] == v) taken = true;
+                }
+                if (taken) continue;
+                if (fallback < 0) fallback = v;
+                boolean finite = seed != null ? seed[v] != HW8Heap.INFINITY : gap[v] != Long.MAX_VALUE;
+                long g = seed != null ? seed[v] : gap[v];
+                if (finite && g > bestGap) {
+                    best = v;
+                    bestGap = g;
+                }
+            }
+            return best >= 0 ? best : fallback;
+        }
+
+        /**
+        * pick a landmark with the avoid strategy
+        * grow a shortest-path tree from a root, and weight each vertex by how much
+        * the current landmarks underestimate its distance from the root
+        * the size of a vertex is the weight of its subtree, or nothing if the
+        * subtree contains a landmark; only that subtree is zeroed, its
+        * ancestors keep the weight of their other children
+        * then start at the vertex with the largest size and walk down into the
+        * largest child until reaching a leaf
+        *
+        * @param current landmarks chosen so far
+        * @param search search over the graph to grow the tree with
+        * @param root the root of the tree
+        *
+        * @return the vertex to use as the next landmark, or -1 if every subtree is covered
+        */
+        private static int avoid(Landmarks current, HW8Heap.Search search, int root) {
+            search.solve(root);
+            Tree tree = search.tree();
+            int n = tree.dist.length;
+            long[] weight = new long[n];
+            boolean[] holds = new boolean[n];
+            for (int i = 0; i < current.size(); i++) {
+                holds[current.node(i)] = true;
+            }
+            // settled order has parents before children, so walk it backwards
+            for (int i = search.settled() - 1; i >= 0; i--) {
+                int v = search.settledNode(i);
+                weight[v] += tree.dist[v] - current.estimate(root, v);
+                if (v == root) continue;
+                int up = tree.parent[v];
+                weight[up] += weight[v];
+                if (holds[v]) holds[up] = true;
+            }
+            long[] size = new long[n];
+            int node = -1;
+            for (int i = 0; i < search.settled(); i++) {
+                int v = search.settledNode(i);
+                size[v] = holds[v] ? 0 : weight[v];
+                if (size[v] > 0 && (node < 0 || size[v] > size[node]))
+                    node = v;
+            }
+            if (node < 0) return -1;
+            int[] firstChild = new int[n];
+            int[] nextSibling = new int[n];
+            Arrays.fill(firstChild, -1);
+            for (int v = 0; v < n; v++) {
+                if (v != root && tree.parent[v] >= 0) {
+                    nextSibling[v] = firstChild[tree.parent[v]];
+                    firstChild[tree.parent[v]] = v;
+                }
+            }
+            while (true) {
+                int heaviest = -1;
+                for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+                    if (size[c] > 0 && (heaviest < 0 || size[c] > size[heaviest]))
+                        heaviest = c;
+                }
+                if (heaviest < 0) break;
+                node = heaviest;
+            }
+            return node;
+        }
+
+        /**
+        * save the tables to a file
+        *
+        * @param graph the graph the tables were built on
+        * @param filename the file to write
+        */
+        public void save(Graph graph, String filename) throws IOException {
+            FileChannel out = FileChannel.open(Paths.get(filename), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(Snapshot.BUFFER_SIZE);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putLong(graph.fingerprint());
+                buffer.putInt(graph.n);
+                buffer.putInt(nodes.length);
+                Snapshot.writeInts(out, buffer, nodes);
+                int[] table = new int[graph.n];
+                for (int i = 0; i < nodes.length; i++) {
+                    from[i].get(0, table);
+                    Snapshot.writeInts(out, buffer, table);
+                    to[i].get(0, table);
+                    Snapshot.writeInts(out, buffer, table);
+                }
+                Snapshot.drain(out, buffer);
+            } finally {
+                out.close();
+            }
+        }
+
+        /**
+        * map the tables in from a file
+        * the tables stay in the file and are paged in as they are used
+        *
+        * @param graph the graph the tables should have been built on
+        * @param filename the file to read
+        *
+        * @return the landmarks in the file
+        *
+        * @throws IOException if the file is not a landmark file, or is for a different graph
+        */
+        public static Landmarks load(Graph graph, String filename) throws IOException {
+            FileChannel in = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+            try {
+                if (in.size() < 24)
+                    throw new IOException(filename + " is too short to be a landmark file");
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                if (map.getInt() != MAGIC)
+                    throw new IOException(filename + " is not a landmark file");
+                int version = map.getInt();
+                if (version != VERSION)
+                    throw new IOException(filename + " is landmark version " + version + ", expected " + VERSION);
+                if (map.getLong() != graph.fingerprint())
+                    throw new IOException(filename + " was built on a different graph");
+                int n = map.getInt();
+                int count = map.getInt();
+                if (n != graph.n || in.size() != 24 + 4L * count + 8L * count * n)
+                    throw new IOException(filename + " is truncated or has the wrong number of vertices");
+                IntBuffer ints = map.asIntBuffer();
+                int[] nodes = new int[count];
+                ints.get(nodes);
+                IntBuffer[] from = new IntBuffer[count];
+                IntBuffer[] to = new IntBuffer[count];
+                for (int i = 0; i < count; i++) {
+                    from[i] = ints.slice(count + 2 * i * n, n);
+                    to[i] = ints.slice(count + (2 * i + 1) * n, n);
+                }
+                return new Landmarks(nodes, from, to);
+            } finally {
+                in.close();
+            }
+        }
+
+        /**
+        * one triangle-inequality bound, skipping unreachable distances
+        *
+        * @param far the larger side of the bound
+        * @param near the side subtracted from it
+        *
+        * @return far - near, or 0 if either side is unreachable
+        */
+        private static int bound(int far, int near) {
+            if (far == HW8Heap.INFINITY || near == HW8Heap.INFINITY) return 0;
+            return far - near;
+        }
+    }
+
+    /**
+    * one point-to-point A* search over a graph
+    * the scratch arrays are epoch-stamped like HW8Heap.Search, so a search only
+    * costs as much as the part of the graph it explores
+    * the heap is keyed by distance so far plus the landmark estimate of the distance left
+    *
+    * @param graph the graph to search
+    * @param landmarks tables for the heuristic
+    * @param dist cost of the shortest known path to each vertex
+    * @param parent previous vertex on the shortest known path to each vertex
+    * @param estimate landmark estimate from each reached vertex to the destination
+    * @param reached epoch in which each vertex was last given a distance
+    * @param done epoch in which each vertex was last settled
+    */
+    public static class Search {
+        private final Graph graph;
+        private final Landmarks landmarks;
+        private final int[] dist;
+        private final int[] parent;
+        private final int[] estimate;
+        private final int[] reached;
+        private final int[] done;
+        private final PackedHeap heap;
+        private int epoch;
+        private int start;
+        private int end;
+        private int settled;
+
+        /**
+        * initialize the object
+        *
+        * @param graph the graph to search
+        * @param landmarks tables for the heuristic
+        */
+        public Search(Graph graph, Landmarks landmarks) {
+            this.graph = graph;
+            this.landmarks = landmarks;
+            this.dist = new int[graph.n];
+            this.parent = new int[graph.n];
+            this.estimate = new int[graph.n];
+            this.reached = new int[graph.n];
+            this.done = new int[graph.n];
+            this.heap = new PackedHeap(graph.n);
+            this.start = -1;
+            this.end = -1;
+        }
+
+        /**
+        * find the shortest path between two vertices
+        *
+        * @param start the vertex to start from
+        * @param end the destination vertex
+        *
+        * @return the cost of the path or HW8Heap.INFINITY if there is none
+        */
+        public int solve(int start, int end) {
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                Arrays.fill(done, 0);
+                epoch = 0;
+            }
+            epoch++;
+            this.start = graph.internal(start);
+            this.end = graph.internal(end);
+            settled = 0;
+            heap.clear();
+            reach(this.start, 0, this.start);
+            while (heap.size() > 0) {
+                int node = PackedHeap.node(heap.pop());
+                if (done[node] == epoch) continue;
+                done[node] = epoch;
+                settled++;
+                if (node == this.end) return dist[node];
+                for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+                    int next = graph.targets[i];
+                    int nd = dist[node] + graph.weights[i];
+                    if (reached[next] != epoch || nd < dist[next])
+                        reach(next, nd, node);
+                }
+            }
+            return HW8Heap.INFINITY;
+        }
+
+        /**
+        * record a new best distance for a vertex and queue it
+        *
+        * @param node the vertex
+        * @param d the new distance
+        * @param from the previous vertex on the new path
+        */
+        private void reach(int node, int d, int from) {
+            if (reached[node] != epoch) {
+                reached[node] = epoch;
+                estimate[node] = landmarks.estimate(graph.original(node), graph.original(end));
+            }
+            dist[node] = d;
+            parent[node] = from;
+            heap.push(d + estimate[node], node);
+        }
+
+        /**
+        * get the number of vertices settled by the last search
+        *
+        * @return number of vertices popped with their final distance
+        */
+        public int settled() {
+            return settled;
+        }
+
+        /**
+        * get the shortest path found by the last search in the same form as HW8 builds them
+        *
+        * @return the path or a path with no edges if the destination was not reached
+        */
+        public HW8.Path path() {
+            if (end < 0 || done[end] != epoch) return new HW8.Path();
+            List<Data.Edge> edges = new ArrayList<Data.Edge>();
+            for (int node = end; node != start; node = parent[node]) {
+                int prev = parent[node];
+                edges.add(0, new Data.Edge(graph.original(prev), graph.original(node), dist[node] - dist[prev]));
+            }
+            edges.add(0, new Data.Edge(graph.original(start), graph.original(start), 0));
+            return new HW8.Path(edges);
+        }
+    }
+
+    /**
+    * find point-to-point shortest paths with A* and compare the work against Dijkstra
+    * with "<start> <end>" the path between those vertices is printed
+    * otherwise NUM_QUERIES random pairs are compared
+    * with "-n <count>" that many landmarks are used
+    * with "-s <strategy>" landmarks are chosen with FARTHEST or AVOID
+    * with "-f <file>" landmark tables are mapped from the file if it matches
+    *     the graph, and built and saved to it otherwise
+    *
+    * @param args optional query, landmark count, strategy and file
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int count = NUM_LANDMARKS;
+        String strategy = FARTHEST;
+        String file = null;
+        int[] query = new int[2];
+        int positional = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-n")) count = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-s")) strategy = args[++i];
+            else if (args[i].equals("-f")) file = args[++i];
+            else if (positional < 2) query[positional++] = Integer.parseInt(args[i]);
+        }
+
+        Graph graph = Graph.load();
+        Landmarks landmarks = null;
+        long begin = System.nanoTime();
+        if (file != null && Files.exists(Paths.get(file))) {
+            try {
+                landmarks = Landmarks.load(graph, file);
+                System.out.println("mapped " + landmarks.size() + " landmarks from " + file);
+            } catch (IOException e) {
+                System.out.println("rebuilding landmarks: " + e.getMessage());
+            }
+        }
+        if (landmarks == null) {
+            landmarks = Landmarks.build(graph, count, strategy);
+            if (file != null) landmarks.save(graph, file);
+            System.out.println("built " + landmarks.size() + " " + strategy + " landmarks in "
+                + (System.nanoTime() - begin) / 1000000 + "ms");
+        }
+
+        Search astar = new Search(graph, landmarks);
+        HW8Heap.Search dijkstra = new HW8Heap.Search(graph);
+        if (positional == 2) {
+            astar.solve(query[0], query[1]);
+            dijkstra.solveTo(query[0], query[1]);
+            System.out.println(astar.path());
+            System.out.println("settled " + astar.settled() + " vertices, Dijkstra settled " + dijkstra.settled());
+            return;
+        }
+
+        Random rand = new Random(1);
+        long astarSettled = 0;
+        long dijkstraSettled = 0;
+        for (int q = 0; q < NUM_QUERIES; q++) {
+            int start = rand.nextInt(graph.n);
+            int end = rand.nextInt(graph.n);
+            int cost = astar.solve(start, end);
+            dijkstra.solveTo(start, end);
+            if (cost != dijkstra.dist(end))
+                System.out.println("mismatch " + start + " -> " + end + ": " + cost + " != " + dijkstra.dist(end));
+            astarSettled += astar.settled();
+            dijkstraSettled += dijkstra.settled();
+        }
+        System.out.println(NUM_QUERIES + " queries, average vertices settled:"
+            + " A* " + astarSettled / NUM_QUERIES
+            + ", Dijkstra to the destination " + dijkstraSettled / NUM_QUERIES
+            + ", Dijkstra full tree " + graph.n);
+    }
+}
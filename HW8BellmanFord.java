@@ -0,0 +1,191 @@
+/**
+* @author Nolan Orloff
+*
+* frontier-based Bellman-Ford SSSP with each round run as a reduction
+* and output the shortest-path tree to the command line
+*
+* each round relaxes the edges of every vertex whose distance went down in
+* the round before; the frontier is split between threads by Reduce, each
+* thread relaxes into its own copy of the distances, and the copies are
+* merged by keeping the lower distance for every vertex
+* with a radius, vertices further away than it are never put in the frontier,
+* since every path through them costs more, so the search stops once every
+* distance that went down is outside the radius
+* that only shortens the rounds: every round still copies and merges the
+* full distance and parent arrays, so unlike HW8Heap the work is not
+* proportional to the region within the radius
+* the relaxation, the merge, and finding the next frontier are the loops
+* in Kernels, so they run as SIMD loops when the vector kernels are selected
+*
+* @see Kernels.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.*;
+
+class HW8BellmanFord {
+    // number of threads to allocate for algorithm
+    public static final int NUM_THREADS = HW8.NUM_THREADS;
+
+    // vertex to use as root
+    // must be less than total number of vertices in graph
+    public static final int START_NODE = HW8.START_NODE;
+
+    /**
+    * Tally class for one round of Bellman-Ford
+    *
+    * input is a list of frontier vertices
+    * tally object has the distances from the last round, shared and read only,
+    * and its own copy of the distances for this round
+    *     on accum, relax every edge leaving the vertex into the copy
+    *     on combine, keep the lower distance for each vertex
+    *
+    * @param graph the graph to search
+    * @param dist distance of each vertex after the last round
+    * @param parent parent of each vertex after the last round
+    * @param nextDist distance of each vertex after this round
+    * @param nextParent parent of each vertex after this round
+    */
+    public static class Sweep implements Tally<Integer> {
+        private final Graph graph;
+        private final int[] dist;
+        private final int[] parent;
+        private int[] nextDist;
+        private int[] nextParent;
+
+        /**
+        * initialize the object
+        *
+        * @param graph the graph to search
+        * @param dist distance of each vertex after the last round
+        * @param parent parent of each vertex after the last round
+        */
+        public Sweep(Graph graph, int[] dist, int[] parent) {
+            this.graph = graph;
+            this.dist = dist;
+            this.parent = parent;
+            this.nextDist = Arrays.copyOf(dist, dist.length);
+            this.nextParent = Arrays.copyOf(parent, parent.length);
+        }
+
+        /**
+        * get a new object with the same data as this one
+        *
+        * @return unique object with the same distances for this round
+        */
+        public Sweep clone() {
+            Sweep other = new Sweep(graph, dist, parent);
+            other.nextDist = Arrays.copyOf(nextDist, nextDist.length);
+            other.nextParent = Arrays.copyOf(nextParent, nextParent.length);
+            return other;
+        }
+
+        /**
+        * This method acts as a factory to create new objects of the same type.
+        *
+        * @return a new identity object
+        */
+        @Override
+        public Sweep init() {
+            return new Sweep(graph, dist, parent);
+        }
+
+        /**
+        * Accumulate a data element into this object.
+        *
+        * @param elem frontier vertex whose edges to relax
+        */
+        @Override
+        public void accum(Integer elem) {
+            int node = elem;
+            Kernels.get().relax(nextDist, nextParent, node, dist[node],
+                graph.targets, graph.weights, graph.offsets[node], graph.offsets[node + 1]);
+        }
+
+        /**
+        * Combing this object with another.
+        * We assume that the the other is the exact same type and size.
+        * Used to combine subtrees in a reduction or scan.
+        *
+        * @param other the right side of the reduction evaluation tree
+        */
+        @Override
+        public void combine(Tally<Integer> other) {
+            Sweep right = (Sweep) other;
+            Kernels.get().minMerge(nextDist, nextParent, right.nextDist, right.nextParent);
+        }
+    }
+
+    /**
+    * run Bellman-Ford from a vertex until no distance goes down
+    *
+    * @param graph the graph to search
+    * @param start the root node of the shortest-path tree
+    *
+    * @return the shortest-path tree
+    */
+    public static Tree solve(Graph graph, int start) {
+        return solve(graph, start, HW8Heap.INFINITY);
+    }
+
+    /**
+    * run Bellman-Ford from a vertex until no distance within a radius goes down
+    *
+    * @param graph the graph to search
+    * @param start the root node of the shortest-path tree
+    * @param radius the highest path cost to include
+    *
+    * @return the shortest-path tree, with vertices further than the radius left unreached
+    */
+    @SuppressWarnings("unchecked")
+    public static Tree solve(Graph graph, int start, int radius) {
+        int[] dist = new int[graph.n];
+        int[] parent = new int[graph.n];
+        Arrays.fill(dist, HW8Heap.INFINITY);
+        Arrays.fill(parent, -1);
+        dist[start] = 0;
+        parent[start] = start;
+        int[] changed = new int[graph.n];
+        List<Integer> frontier = new ArrayList<Integer>();
+        frontier.add(start);
+        while (frontier.size() > 0) {
+            Sweep reduction = (Sweep) new Reduce(frontier, NUM_THREADS, new Sweep(graph, dist, parent)).reduce();
+            int count = Kernels.get().compact(dist, reduction.nextDist, changed);
+            frontier = new ArrayList<Integer>(count);
+            for (int i = 0; i < count; i++) {
+                if (reduction.nextDist[changed[i]] <= radius)
+                    frontier.add(changed[i]);
+            }
+            dist = reduction.nextDist;
+            parent = reduction.nextParent;
+        }
+        if (radius != HW8Heap.INFINITY) {
+            for (int i = 0; i < graph.n; i++) {
+                if (dist[i] > radius) {
+                    dist[i] = HW8Heap.INFINITY;
+                    parent[i] = -1;
+                }
+            }
+        }
+        return new Tree(start, dist, parent);
+    }
+
+    /**
+    * calculate and print the shortest-path tree for the graph in the supplied file
+    * with "-r <radius>" only vertices within that cost of the root are kept
+    *
+    * @param args optional bound on the search
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int radius = HW8Heap.INFINITY;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-r")) radius = Integer.parseInt(args[i + 1]);
+        }
+        Tree tree = solve(Graph.load(), START_NODE, radius);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        tree.write(out);
+        out.flush();
+    }
+}
@@ -0,0 +1,1024 @@
+/**
+* @author Nolan Orloff
+*
+* differential check of every shortest-path engine, and a timing check
+* against a stored baseline
+*
+* correctness: seeded random graphs of several sizes and densities, with
+* weight 0 (absent) edges and vertices nothing leads to, are solved by every
+* engine, and each engine's distances must match HW8Heap's exactly
+*     the engines include HW8Heap on each vertex order from Reorder, so the
+*     id translation is covered
+*     the bounded searches (HW8Heap.Search.solveWithin and solveNearest,
+*     HW8BellmanFord and HW8.Dijkstras with a radius) must match the full
+*     solve cut down to the bound; the HW8Heap ones share one Search across
+*     every query, so a stale slot from an earlier epoch shows up as a mismatch
+*     HW8.Dijkstras.clone must copy every edge and path and share nothing
+*     a Snapshot must read back the tree it wrote, on the graph as given and
+*     relabeled, and refuse one for a different graph, bound, or length
+* HW8MST.boruvka is checked the same way against Kruskal's algorithm, on
+* random multigraphs with repeated edges, self-loops and weight 0 edges: the
+* forest must have the same weight and number of edges, and no cycle
+*
+* timing, only with -p: every engine is set up once on one fixed graph, then
+* solves it over and over for a while, and the median time per solve is
+* divided by the time of a fixed single-threaded calibration workload
+* (heapsorting an array), so the numbers can be compared between machines
+* the check fails when an engine's ratio is more than the threshold over the
+* ratio stored in the baseline file for the same kernels and engine, both on
+* the first timing and on a second one, or when the baseline has no ratio for it
+*     the calibration says nothing about how many cores there are, so the
+*     ratios of the threaded engines (THREADED) are stored per core count,
+*     and are only reported, not failed, on a core count with no baseline
+*     java HW8Check                 differential check only
+*     java HW8Check -p              timing check against check_baseline.txt
+*     java HW8Check -p -u           record new ratios over the old ones
+*     java HW8Check -p -t 2.5       fail at 2.5x the baseline instead of 3x
+*     java HW8Check -p -b <file>    use another baseline file
+*
+* exits with status 1 on a mismatch, a slowdown, or a missing baseline, so make stops
+*
+* @see HW8Heap.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Random;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.io.*;
+
+class HW8Check {
+    // file the timings are compared against
+    public static final String BASELINE = "check_baseline.txt";
+
+    // slowdown over the baseline that fails the check
+    public static final double THRESHOLD = 3.0;
+
+    // number of vertices in each random graph
+    public static final int[] SIZES = {8, 33, 96};
+
+    // chance of an edge between any two vertices in each random graph
+    public static final double[] DENSITIES = {0.05, 0.2, 0.6};
+
+    // random graphs for each size and density
+    public static final int SEEDS = 3;
+
+    // highest edge weight; weight 0 means the edge is absent
+    public static final int MAX_WEIGHT = 20;
+
+    // size, density and seed of the graph used for timing
+    public static final int PERF_SIZE = 256;
+    public static final double PERF_DENSITY = 0.1;
+    public static final long PERF_SEED = 5600;
+
+    // each engine solves untimed for this many nanoseconds first, so the JIT has compiled it
+    public static final long PERF_WARMUP = 500000000L;
+
+    // timed rounds of each engine after the warm-up, the median is kept
+    public static final int PERF_RUNS = 11;
+
+    // each timed round solves over and over until this many nanoseconds have passed
+    public static final long PERF_NANOS = 50000000L;
+
+    // engines that solve on more than one thread, so their ratios depend on the core count
+    public static final List<String> THREADED = Arrays.asList("reduce", "distributed", "bellmanford");
+
+    // number of ints heapsorted by the calibration workload
+    public static final int CALIBRATION_SIZE = 1 << 14;
+
+    /**
+    * one way of solving single-source shortest paths
+    */
+    static abstract class Engine {
+        /**
+        * get the distance from the root to every vertex
+        *
+        * @param graph the graph as adjacency arrays
+        * @param edges the same graph as a list of edges
+        * @param start the root vertex
+        *
+        * @return cost of the shortest path to each vertex, HW8Heap.INFINITY if unreachable
+        */
+        abstract int[] solve(Graph graph, List<Data.Edge> edges, int start) throws Exception;
+
+        /**
+        * do the work that only depends on the graph once, so it is not timed
+        * with every solve; by default there is none
+        *
+        * @param graph the graph as adjacency arrays
+        * @param edges the same graph as a list of edges
+        *
+        * @return an engine that only solves on this graph
+        */
+        Engine prepare(Graph graph, List<Data.Edge> edges) {
+            return this;
+        }
+    }
+
+    /**
+    * one way of solving shortest paths within a radius of the root
+    */
+    interface Bounded {
+        /**
+        * get the distance from the root to every vertex within the radius
+        *
+        * @param graph the graph as adjacency arrays
+        * @param edges the same graph as a list of edges
+        * @param start the root vertex
+        * @param radius the highest path cost to include
+        *
+        * @return cost of the shortest path to each vertex, HW8Heap.INFINITY if unreachable or further than the radius
+        */
+        int[] solve(Graph graph, List<Data.Edge> edges, int start, int radius) throws Exception;
+    }
+
+    /**
+    * get the distances from a list of paths in the form HW8 builds them
+    *
+    * @param paths one path per reached vertex
+    * @param n number of vertices
+    *
+    * @return cost of the path ending at each vertex, HW8Heap.INFINITY where there is none
+    */
+    private static int[] distances(List<HW8.Path> paths, int n) {
+        int[] dist = new int[n];
+        Arrays.fill(dist, HW8Heap.INFINITY);
+        for (HW8.Path p : paths) {
+            dist[p.tail().end] = p.cost();
+        }
+        return dist;
+    }
+
+    /**
+    * get the distances settled by the last search of a HW8Heap.Search
+    *
+    * @param search the search
+    * @param n number of vertices
+    *
+    * @return cost of the shortest path to each vertex, HW8Heap.INFINITY if it was not settled
+    */
+    private static int[] distances(HW8Heap.Search search, int n) {
+        int[] dist = new int[n];
+        for (int i = 0; i < n; i++) {
+            dist[i] = search.dist(i);
+        }
+        return dist;
+    }
+
+    /**
+    * get an engine that runs HW8Heap on a relabeled copy of the graph
+    *
+    * @param order name of the vertex order, see Reorder.order
+    *
+    * @return the engine
+    */
+    private static Engine reordered(final String order) {
+        return new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) throws Exception {
+                return prepare(graph, edges).solve(graph, edges, start);
+            }
+
+            Engine prepare(Graph graph, List<Data.Edge> edges) {
+                return searching(new HW8Heap.Search(graph.relabel(Reorder.order(graph, order))));
+            }
+        };
+    }
+
+    /**
+    * get an engine that reuses one HW8Heap search for every solve
+    *
+    * @param search the search, already built for the graph
+    *
+    * @return the engine
+    */
+    private static Engine searching(final HW8Heap.Search search) {
+        return new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) {
+                search.solve(start);
+                return distances(search, graph.n);
+            }
+        };
+    }
+
+    /**
+    * get every engine, with HW8Heap first as the reference
+    *
+    * @param names filled with the name of each engine
+    *
+    * @return the engines
+    */
+    private static List<Engine> engines(List<String> names) {
+        List<Engine> out = new ArrayList<Engine>();
+        names.add("heap");
+        out.add(new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) throws Exception {
+                return prepare(graph, edges).solve(graph, edges, start);
+            }
+
+            Engine prepare(Graph graph, List<Data.Edge> edges) {
+                return searching(new HW8Heap.Search(graph));
+            }
+        });
+        for (String order : new String[] {Reorder.BFS, Reorder.RCM, Reorder.DEGREE}) {
+            names.add("heap-" + order);
+            out.add(reordered(order));
+        }
+        names.add("serial");
+        out.add(new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) throws Exception {
+                return prepare(graph, edges).solve(graph, edges, start);
+            }
+
+            Engine prepare(Graph graph, List<Data.Edge> edges) {
+                HW8Serial.n_nodes = graph.n;
+                final int[][] table = HW8Serial.makeGraph(edges);
+                return new Engine() {
+                    public int[] solve(Graph graph, List<Data.Edge> edges, int start) {
+                        HW8Serial.n_nodes = graph.n;
+                        HW8Serial.graph = table;
+                        int[] dist = distances(HW8Serial.dijkstras(start), graph.n);
+                        dist[start] = 0;        // HW8Serial leaves out the path from the root to itself
+                        return dist;
+                    }
+                };
+            }
+        });
+        names.add("reduce");
+        out.add(new Engine() {
+            @SuppressWarnings("unchecked")
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) {
+                HW8.Dijkstras factory = new HW8.Dijkstras(start, graph.n);
+                HW8.Dijkstras reduction = (HW8.Dijkstras) new Reduce(edges, HW8.NUM_THREADS, factory).reduce();
+                return distances(reduction.getPaths(), graph.n);
+            }
+        });
+        names.add("distributed");
+        out.add(new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) throws InterruptedException {
+                return HW8Distributed.solve(graph, start, HW8Distributed.NUM_SHARDS).dist;
+            }
+        });
+        names.add("bellmanford");
+        out.add(new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) {
+                return HW8BellmanFord.solve(graph, start).dist;
+            }
+        });
+        names.add("astar");
+        out.add(new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) throws Exception {
+                return prepare(graph, edges).solve(graph, edges, start);
+            }
+
+            Engine prepare(Graph graph, List<Data.Edge> edges) {
+                HW8AStar.Landmarks landmarks = HW8AStar.Landmarks.build(graph, HW8AStar.NUM_LANDMARKS, HW8AStar.FARTHEST);
+                final HW8AStar.Search search = new HW8AStar.Search(graph, landmarks);
+                return new Engine() {
+                    public int[] solve(Graph graph, List<Data.Edge> edges, int start) {
+                        int[] dist = new int[graph.n];
+                        for (int i = 0; i < graph.n; i++) {
+                            dist[i] = search.solve(start, i);
+                        }
+                        return dist;
+                    }
+                };
+            }
+        });
+        return out;
+    }
+
+    /**
+    * get every engine that can stop at a radius
+    *
+    * @param names filled with the name of each engine
+    * @param shared search reused by every radius query on HW8Heap
+    *
+    * @return the engines
+    */
+    private static List<Bounded> bounded(List<String> names, final HW8Heap.Search[] shared) {
+        List<Bounded> out = new ArrayList<Bounded>();
+        names.add("heap-within");
+        out.add(new Bounded() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start, int radius) {
+                shared[0].solveWithin(start, radius);
+                return distances(shared[0], graph.n);
+            }
+        });
+        names.add("bellmanford-within");
+        out.add(new Bounded() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start, int radius) {
+                return HW8BellmanFord.solve(graph, start, radius).dist;
+            }
+        });
+        names.add("reduce-within");
+        out.add(new Bounded() {
+            @SuppressWarnings("unchecked")
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start, int radius) {
+                HW8.Dijkstras factory = new HW8.Dijkstras(start, graph.n, radius);
+                HW8.Dijkstras reduction = (HW8.Dijkstras) new Reduce(edges, HW8.NUM_THREADS, factory).reduce();
+                return distances(reduction.getPaths(), graph.n);
+            }
+        });
+        return out;
+    }
+
+    /**
+    * make a random graph with no repeated edges
+    * about 1 in 8 edges has weight 0, and the last n/8 vertices have no
+    * edges into them, so some vertices can't be reached
+    *
+    * @param n number of vertices
+    * @param density chance of an edge between any two vertices
+    * @param seed seed for the generator
+    *
+    * @return list of edges
+    */
+    public static List<Data.Edge> randomEdges(int n, double density, long seed) {
+        Random rand = new Random(seed);
+        List<Data.Edge> out = new ArrayList<Data.Edge>();
+        int reachable = n - n / 8;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < reachable; j++) {
+                if (i == j || rand.nextDouble() >= density) continue;
+                int weight = rand.nextInt(8) == 0 ? 0 : 1 + rand.nextInt(MAX_WEIGHT);
+                out.add(new Data.Edge(i, j, weight));
+            }
+        }
+        return out;
+    }
+
+    /**
+    * make a random multigraph for the spanning forest check
+    * a pair of vertices can have several edges between them, in either
+    * direction, and about 1 in 8 edges has weight 0 or is a self-loop
+    * weights are drawn from a small range so there are many ties
+    *
+    * @param n number of vertices
+    * @param density chance of edges between any two vertices
+    * @param seed seed for the generator
+    *
+    * @return list of edges
+    */
+    public static List<Data.Edge> randomMultigraph(int n, double density, long seed) {
+        Random rand = new Random(seed);
+        List<Data.Edge> out = new ArrayList<Data.Edge>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                if (rand.nextDouble() >= density) continue;
+                for (int copies = 1 + rand.nextInt(3); copies > 0; copies--) {
+                    int weight = rand.nextInt(8) == 0 ? 0 : 1 + rand.nextInt(MAX_WEIGHT / 4);
+                    if (rand.nextBoolean())
+                        out.add(new Data.Edge(i, j, weight));
+                    else
+                        out.add(new Data.Edge(j, i, weight));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+    * find the representative of a vertex's set, for kruskal
+    *
+    * @param parent the parent of each vertex in its set's tree
+    * @param node the vertex
+    *
+    * @return the representative
+    */
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+    * get the weight and size of a minimum spanning forest with Kruskal's algorithm
+    * the reference for HW8MST.boruvka; weight 0 edges are not edges there either
+    *
+    * @param edges the edges in the graph
+    * @param n number of vertices
+    *
+    * @return the total weight and the number of edges of the forest
+    */
+    private static long[] kruskal(List<Data.Edge> edges, int n) {
+        List<Data.Edge> sorted = new ArrayList<Data.Edge>();
+        for (Data.Edge e : edges) {
+            if (e.weight != 0) sorted.add(e);
+        }
+        Collections.sort(sorted, new Comparator<Data.Edge>() {
+            public int compare(Data.Edge left, Data.Edge right) {
+                return Integer.compare(left.weight, right.weight);
+            }
+        });
+        int[] parent = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+        }
+        long weight = 0;
+        long count = 0;
+        for (Data.Edge e : sorted) {
+            int a = find(parent, e.start);
+            int b = find(parent, e.end);
+            if (a == b) continue;
+            parent[a] = b;
+            weight += e.weight;
+            count++;
+        }
+        return new long[] {weight, count};
+    }
+
+    /**
+    * check HW8MST.boruvka against kruskal on every random multigraph
+    * the forest must have the same weight and number of edges as Kruskal's,
+    * use no weight 0 edge, and have no cycle, so it spans what Kruskal's spans
+    *
+    * @return number of mismatches
+    */
+    private static int spanningForests() {
+        int failures = 0;
+        int graphs = 0;
+        for (int n : SIZES) {
+            for (double density : DENSITIES) {
+                for (int s = 0; s < SEEDS; s++) {
+                    long seed = n * 1000003L + (long) (density * 1000) * 31 + s;
+                    List<Data.Edge> edges = randomMultigraph(n, density, seed);
+                    String where = "seed " + seed + " n " + n + " density " + density;
+                    graphs++;
+                    List<Data.Edge> forest;
+                    try {
+                        forest = HW8MST.boruvka(edges, n);
+                    } catch (Exception e) {
+                        failures += failed("mst", where, e);
+                        continue;
+                    }
+                    int[] parent = new int[n];
+                    for (int v = 0; v < n; v++) {
+                        parent[v] = v;
+                    }
+                    long weight = 0;
+                    String wrong = null;
+                    for (Data.Edge e : forest) {
+                        int a = find(parent, e.start);
+                        int b = find(parent, e.end);
+                        if (e.weight == 0) wrong = "weight 0 edge " + e.start + " -> " + e.end;
+                        else if (a == b) wrong = "edge " + e.start + " -> " + e.end + " closes a cycle";
+                        if (wrong != null) break;
+                        parent[a] = b;
+                        weight += e.weight;
+                    }
+                    long[] expected = kruskal(edges, n);
+                    if (wrong == null && (weight != expected[0] || forest.size() != expected[1]))
+                        wrong = "weight " + weight + " in " + forest.size() + " edges != "
+                            + expected[0] + " in " + expected[1] + " edges";
+                    if (wrong != null) {
+                        System.out.println("MISMATCH mst " + where + ": " + wrong);
+                        failures++;
+                    }
+                }
+            }
+        }
+        System.out.println(graphs + " multigraphs, spanning forest checks, " + failures + " mismatches");
+        return failures;
+    }
+
+    /**
+    * compare one engine's distances with the expected ones and report the first difference
+    *
+    * @param name the engine
+    * @param where the graph and query, for the report
+    * @param actual the engine's distances
+    * @param expected the reference distances
+    *
+    * @return 1 if they differ, 0 if they match
+    */
+    private static int compare(String name, String where, int[] actual, int[] expected) {
+        for (int v = 0; v < expected.length; v++) {
+            if (actual[v] != expected[v]) {
+                System.out.println("MISMATCH " + name + " " + where + " vertex " + v
+                    + ": " + actual[v] + " != " + expected[v]);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+    * report an engine that threw instead of answering
+    *
+    * @param name the engine
+    * @param where the graph and query, for the report
+    * @param e what was thrown
+    *
+    * @return 1, counted as a mismatch
+    */
+    private static int failed(String name, String where, Exception e) {
+        System.out.println("FAILED " + name + " " + where + ": " + e);
+        return 1;
+    }
+
+    /**
+    * get the median of the finite distances, used as the radius for bounded queries
+    *
+    * @param dist the distances from a full solve
+    *
+    * @return a radius that cuts the reachable vertices roughly in half
+    */
+    private static int medianRadius(int[] dist) {
+        int[] finite = new int[dist.length];
+        int count = 0;
+        for (int d : dist) {
+            if (d != HW8Heap.INFINITY) finite[count++] = d;
+        }
+        Arrays.sort(finite, 0, count);
+        return finite[count / 2];
+    }
+
+    /**
+    * check a k-nearest search on the shared search against the full solve
+    * the settled vertices must be the root and the k closest others, in order
+    * of distance, with their full distances, and nothing else may report a distance
+    *
+    * @param search the shared search, already run with solveNearest
+    * @param k the number of vertices asked for
+    * @param expected distances from the full solve
+    * @param where the graph and query, for the report
+    *
+    * @return 1 if the search is wrong, 0 if it is right
+    */
+    private static int checkNearest(HW8Heap.Search search, int k, int[] expected, String where) {
+        int reachable = 0;
+        for (int d : expected) {
+            if (d != HW8Heap.INFINITY) reachable++;
+        }
+        int want = Math.min(k + 1, reachable);
+        if (search.settled() != want) {
+            System.out.println("MISMATCH heap-nearest " + where + ": settled " + search.settled() + " != " + want);
+            return 1;
+        }
+        boolean[] settled = new boolean[expected.length];
+        int last = 0;
+        for (int i = 0; i < search.settled(); i++) {
+            int v = search.settledNode(i);
+            settled[v] = true;
+            if (search.dist(v) != expected[v] || expected[v] < last) {
+                System.out.println("MISMATCH heap-nearest " + where + " vertex " + v + " settled " + i
+                    + ": " + search.dist(v) + " != " + expected[v]);
+                return 1;
+            }
+            last = expected[v];
+        }
+        for (int v = 0; v < expected.length; v++) {
+            if (settled[v]) continue;
+            if (search.dist(v) != HW8Heap.INFINITY || expected[v] < last) {
+                System.out.println("MISMATCH heap-nearest " + where + " vertex " + v
+                    + ": not settled, dist " + search.dist(v) + ", full " + expected[v] + ", k-th " + last);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+    * check that HW8.Dijkstras.clone copies every edge and path and shares nothing
+    * half the edges go into one object, it is cloned, the rest go into the clone,
+    * and the original must be unchanged while the clone ends up with the full solve
+    *
+    * @param edges the graph
+    * @param n number of vertices
+    * @param start the root vertex
+    * @param expected distances from the full solve
+    * @param where the graph and query, for the report
+    *
+    * @return 1 if the clone is wrong, 0 if it is right
+    */
+    private static int checkClone(List<Data.Edge> edges, int n, int start, int[] expected, String where) {
+        int half = edges.size() / 2;
+        HW8.Dijkstras original = new HW8.Dijkstras(start, n);
+        for (int i = 0; i < half; i++) {
+            original.accum(edges.get(i));
+        }
+        HW8.Dijkstras copy = original.clone();
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                if (copy.getEdge(r, c) != original.getEdge(r, c)) {
+                    System.out.println("MISMATCH clone " + where + " edge " + r + " -> " + c
+                        + ": " + copy.getEdge(r, c) + " != " + original.getEdge(r, c));
+                    return 1;
+                }
+            }
+        }
+        int[] before = distances(original.getPaths(), n);
+        if (compare("clone", where + " (paths after cloning)", distances(copy.getPaths(), n), before) != 0) return 1;
+        for (int i = half; i < edges.size(); i++) {
+            copy.accum(edges.get(i));
+        }
+        for (int i = half; i < edges.size(); i++) {
+            Data.Edge e = edges.get(i);
+            if (original.getEdge(e.start, e.end) != 0) {
+                System.out.println("MISMATCH clone " + where + ": edge " + e.start + " -> " + e.end
+                    + " added to the clone showed up in the original");
+                return 1;
+            }
+        }
+        if (compare("clone", where + " (original after changing the clone)", distances(original.getPaths(), n), before) != 0)
+            return 1;
+        return compare("clone", where + " (clone after the rest of the edges)", distances(copy.getPaths(), n), expected);
+    }
+
+    /**
+    * compare a tree loaded from a snapshot with the tree that was saved
+    *
+    * @param what the snapshot, for the report
+    * @param loaded the tree read back
+    * @param saved the tree that was written
+    * @param parents whether the parents have to match too, not just the distances
+    *
+    * @return 1 if they differ, 0 if they match
+    */
+    private static int compareTrees(String what, Tree loaded, Tree saved, boolean parents) {
+        if (loaded.start != saved.start) {
+            System.out.println("MISMATCH snapshot " + what + ": root " + loaded.start + " != " + saved.start);
+            return 1;
+        }
+        if (compare("snapshot", what + " dist", loaded.dist, saved.dist) != 0) return 1;
+        return parents ? compare("snapshot", what + " parent", loaded.parent, saved.parent) : 0;
+    }
+
+    /**
+    * check that reading a snapshot is refused
+    *
+    * @param graph the graph to read it for
+    * @param radius the bound to read it with
+    * @param file the snapshot
+    * @param why what is wrong with it, for the report
+    *
+    * @return 1 if it was read anyway, 0 if it was refused
+    */
+    private static int refused(Graph graph, int radius, File file, String why) {
+        try {
+            Snapshot.read(graph, radius, -1, file.getPath());
+        } catch (IOException e) {
+            return 0;
+        }
+        System.out.println("MISMATCH snapshot " + why + ": read without an error");
+        return 1;
+    }
+
+    /**
+    * check that Snapshot writes a tree and reads it back unchanged, on the graph
+    * as given and relabeled, with and without a radius, and that it refuses a
+    * snapshot for a different graph, with a different bound, or cut short
+    * a tree saved on the relabeled graph must also load on the plain one, since
+    * both have the same fingerprint and the tree uses the ids from the file
+    *
+    * @param graph the graph
+    * @param edges the same graph as a list of edges
+    * @param start the root vertex
+    * @param radius a radius for the bounded tree
+    * @param where the graph and query, for the report
+    *
+    * @return number of failed checks
+    */
+    private static int checkSnapshot(Graph graph, List<Data.Edge> edges, int start, int radius, String where)
+            throws IOException {
+        int failures = 0;
+        File file = File.createTempFile("HW8Check", ".snapshot");
+        try {
+            Graph relabeled = graph.relabel(Reorder.order(graph, Reorder.RCM));
+            HW8Heap.Search search = new HW8Heap.Search(relabeled);
+            search.solve(start);
+            Tree tree = search.tree();
+            Snapshot.write(tree, relabeled, file.getPath());
+            failures += compareTrees(where + " (rcm)", Snapshot.read(relabeled, file.getPath()), tree, true);
+            failures += compareTrees(where + " (rcm read as file order)", Snapshot.read(graph, file.getPath()), tree, false);
+
+            search = new HW8Heap.Search(graph);
+            search.solve(start);
+            tree = search.tree();
+            Snapshot.write(tree, graph, file.getPath());
+            failures += compareTrees(where, Snapshot.read(graph, file.getPath()), tree, true);
+            failures += refused(graph, radius, file, where + " with radius " + radius + " for a tree with none");
+
+            search.solveWithin(start, radius);
+            tree = search.tree();
+            Snapshot.write(tree, graph, radius, -1, file.getPath());
+            failures += compareTrees(where + " radius " + radius,
+                Snapshot.read(graph, radius, -1, file.getPath()), tree, true);
+            failures += refused(graph, HW8Heap.INFINITY, file, where + " with no radius for a tree with " + radius);
+
+            // the same graph with one weight changed, or one edge added if it has none
+            List<Data.Edge> changed = new ArrayList<Data.Edge>(edges);
+            if (changed.isEmpty()) {
+                changed.add(new Data.Edge(0, graph.n - 1, 1));
+            } else {
+                Data.Edge first = changed.get(0);
+                changed.set(0, new Data.Edge(first.start, first.end, first.weight + 1));
+            }
+            failures += refused(Graph.fromEdges(changed, graph.n), radius, file, where + " for a different graph");
+
+            RandomAccessFile cut = new RandomAccessFile(file, "rw");
+            cut.setLength(cut.length() - 4);
+            cut.close();
+            failures += refused(graph, radius, file, where + " cut short");
+        } finally {
+            file.delete();
+        }
+        return failures;
+    }
+
+    /**
+    * solve every random graph with every engine and compare with the reference
+    *
+    * @param engines the engines, reference first
+    * @param names name of each engine
+    *
+    * @return number of mismatches
+    */
+    private static int differential(List<Engine> engines, List<String> names) {
+        int failures = 0;
+        int graphs = 0;
+        HW8Heap.Search[] shared = new HW8Heap.Search[1];
+        List<String> boundedNames = new ArrayList<String>();
+        List<Bounded> bounded = bounded(boundedNames, shared);
+        for (int n : SIZES) {
+            for (double density : DENSITIES) {
+                for (int s = 0; s < SEEDS; s++) {
+                    long seed = n * 1000003L + (long) (density * 1000) * 31 + s;
+                    List<Data.Edge> edges = randomEdges(n, density, seed);
+                    Graph graph = Graph.fromEdges(edges, n);
+                    Random rand = new Random(seed);
+                    int start = rand.nextInt(n);
+                    String where = "seed " + seed + " n " + n + " density " + density + " start " + start;
+                    int[] expected;
+                    try {
+                        expected = engines.get(0).solve(graph, edges, start);
+                    } catch (Exception e) {
+                        failures += failed(names.get(0), where, e);
+                        continue;
+                    }
+                    for (int e = 1; e < engines.size(); e++) {
+                        try {
+                            failures += compare(names.get(e), where, engines.get(e).solve(graph, edges, start), expected);
+                        } catch (Exception ex) {
+                            failures += failed(names.get(e), where, ex);
+                        }
+                    }
+
+                    // one search per graph, reused by every query on it, so each query
+                    // starts with the slots of the one before still filled in
+                    shared[0] = new HW8Heap.Search(graph);
+                    int other = rand.nextInt(n);
+                    shared[0].solve(other);
+                    int radius = medianRadius(expected);
+                    int[] within = new int[n];
+                    for (int v = 0; v < n; v++) {
+                        within[v] = expected[v] <= radius ? expected[v] : HW8Heap.INFINITY;
+                    }
+                    for (int b = 0; b < bounded.size(); b++) {
+                        try {
+                            failures += compare(boundedNames.get(b), where + " radius " + radius,
+                                bounded.get(b).solve(graph, edges, start, radius), within);
+                        } catch (Exception ex) {
+                            failures += failed(boundedNames.get(b), where, ex);
+                        }
+                    }
+                    int k = rand.nextInt(n);
+                    shared[0].solveNearest(start, k);
+                    failures += checkNearest(shared[0], k, expected, where + " k " + k);
+                    shared[0].solveWithin(other, 0);
+                    shared[0].solve(start);
+                    failures += compare("heap-reused", where, distances(shared[0], n), expected);
+
+                    try {
+                        failures += checkClone(edges, n, start, expected, where);
+                    } catch (Exception ex) {
+                        failures += failed("clone", where, ex);
+                    }
+                    try {
+                        failures += checkSnapshot(graph, edges, start, radius, where);
+                    } catch (Exception ex) {
+                        failures += failed("snapshot", where, ex);
+                    }
+                    graphs++;
+                }
+            }
+        }
+        System.out.println(graphs + " graphs, " + engines.size() + " engines, 3 bounded engines, "
+            + "nearest, reuse, clone and snapshot checks, " + failures + " mismatches");
+        return failures;
+    }
+
+    /**
+    * time one engine on a graph
+    * the engine is prepared once, outside the timing, and solves untimed for
+    * PERF_WARMUP, then each round solves over and over for PERF_NANOS, and the
+    * median round is kept
+    *
+    * @param engine the engine
+    * @param graph the graph as adjacency arrays
+    * @param edges the same graph as a list of edges
+    *
+    * @return median time per solve in nanoseconds
+    */
+    private static double time(Engine engine, Graph graph, List<Data.Edge> edges) throws Exception {
+        Engine prepared = engine.prepare(graph, edges);
+        long warm = System.nanoTime();
+        while (System.nanoTime() - warm < PERF_WARMUP) {
+            prepared.solve(graph, edges, 0);
+        }
+        double[] rounds = new double[PERF_RUNS];
+        for (int r = 0; r < PERF_RUNS; r++) {
+            int calls = 0;
+            long begin = System.nanoTime();
+            long elapsed;
+            do {
+                prepared.solve(graph, edges, 0);
+                calls++;
+                elapsed = System.nanoTime() - begin;
+            } while (elapsed < PERF_NANOS);
+            rounds[r] = elapsed / (double) calls;
+        }
+        Arrays.sort(rounds);
+        return rounds[PERF_RUNS / 2];
+    }
+
+    /**
+    * sort an array in place with heapsort
+    * the calibration workload; written out here rather than calling Arrays.sort,
+    * so the way the JIT compiles it doesn't depend on what else has been sorted
+    *
+    * @param a the array to sort
+    */
+    private static void heapsort(int[] a) {
+        for (int i = a.length / 2 - 1; i >= 0; i--) {
+            siftDown(a, i, a.length);
+        }
+        for (int end = a.length - 1; end > 0; end--) {
+            int top = a[0];
+            a[0] = a[end];
+            a[end] = top;
+            siftDown(a, 0, end);
+        }
+    }
+
+    /**
+    * move an element down a max-heap until both children are smaller
+    *
+    * @param a the heap
+    * @param i the element to move
+    * @param size number of elements in the heap
+    */
+    private static void siftDown(int[] a, int i, int size) {
+        int value = a[i];
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && a[child + 1] > a[child]) child++;
+            if (a[child] <= value) break;
+            a[i] = a[child];
+            i = child;
+        }
+        a[i] = value;
+    }
+
+    /**
+    * time every engine on the fixed graph, relative to the calibration workload
+    * the calibration is timed once before the engines and once after, and the
+    * faster time is used
+    *
+    * @param engines the engines
+    *
+    * @return time per solve of each engine divided by the time of one calibration run
+    */
+    private static double[] timings(List<Engine> engines) throws Exception {
+        List<Data.Edge> edges = randomEdges(PERF_SIZE, PERF_DENSITY, PERF_SEED);
+        Graph graph = Graph.fromEdges(edges, PERF_SIZE);
+        final int[] values = new int[CALIBRATION_SIZE];
+        final int[] sorted = new int[CALIBRATION_SIZE];
+        Random rand = new Random(PERF_SEED);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = rand.nextInt();
+        }
+        Engine calibration = new Engine() {
+            public int[] solve(Graph graph, List<Data.Edge> edges, int start) {
+                System.arraycopy(values, 0, sorted, 0, values.length);
+                heapsort(sorted);
+                return sorted;
+            }
+        };
+        double[] time = new double[engines.size()];
+        double unit = time(calibration, graph, edges);
+        for (int e = 0; e < engines.size(); e++) {
+            time[e] = time(engines.get(e), graph, edges);
+        }
+        unit = Math.min(unit, time(calibration, graph, edges));
+        System.out.printf("calibration %10.3fms per heapsort of %d ints%n", unit / 1e6, CALIBRATION_SIZE);
+        double[] ratio = new double[engines.size()];
+        for (int e = 0; e < engines.size(); e++) {
+            ratio[e] = time[e] / unit;
+        }
+        return ratio;
+    }
+
+    /**
+    * read the baseline file
+    *
+    * @param file the baseline file
+    *
+    * @return ratio for each "<kernels> <engine>" key, empty if there is no file
+    */
+    private static Map<String, Double> readBaseline(String file) throws IOException {
+        Map<String, Double> out = new TreeMap<String, Double>();
+        if (!Files.exists(Paths.get(file))) return out;
+        for (String line : Files.readAllLines(Paths.get(file))) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length != 3 || parts[0].startsWith("#")) continue;
+            out.put(parts[0] + " " + parts[1], Double.parseDouble(parts[2]));
+        }
+        return out;
+    }
+
+    /**
+    * write the baseline file
+    *
+    * @param file the baseline file
+    * @param baseline ratio for each "<kernels> <engine>" key
+    */
+    private static void writeBaseline(String file, Map<String, Double> baseline) throws IOException {
+        Writer out = new BufferedWriter(new FileWriter(file));
+        out.write("# kernels engine ratio: time per solve on the " + PERF_SIZE + " vertex graph divided by\n");
+        out.write("# the time to heapsort " + CALIBRATION_SIZE + " ints, median of " + PERF_RUNS + " rounds\n");
+        out.write("# threaded engines are keyed by core count, \"<engine>/<cores>\"\n");
+        out.write("# refresh with: make perf CHECKFLAGS=-u\n");
+        for (Map.Entry<String, Double> e : baseline.entrySet()) {
+            out.write(e.getKey() + " " + String.format("%.4f", e.getValue()) + "\n");
+        }
+        out.close();
+    }
+
+    /**
+    * run the differential check, or the timing check with -p
+    *
+    * @param args optional timing flag, update flag, threshold and baseline file
+    */
+    public static void main(String[] args) throws Exception {
+        boolean perf = false;
+        boolean update = false;
+        double threshold = THRESHOLD;
+        String file = BASELINE;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-p")) perf = true;
+            else if (args[i].equals("-u")) update = true;
+            else if (args[i].equals("-t")) threshold = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-b")) file = args[++i];
+        }
+
+        List<String> names = new ArrayList<String>();
+        List<Engine> engines = engines(names);
+        System.out.println("kernels: " + Kernels.get().name());
+        if (!perf) {
+            if (differential(engines, names) + spanningForests() > 0) System.exit(1);
+            return;
+        }
+
+        int failures = 0;
+        String kernels = System.getProperty("kernels", "scalar");
+        int cores = Runtime.getRuntime().availableProcessors();
+        double[] ratio = timings(engines);
+        Map<String, Double> baseline = readBaseline(file);
+        for (int e = 0; e < engines.size(); e++) {
+            boolean threaded = THREADED.contains(names.get(e));
+            String key = kernels + " " + names.get(e) + (threaded ? "/" + cores : "");
+            Double before = baseline.get(key);
+            String verdict;
+            if (update) {
+                baseline.put(key, ratio[e]);
+                verdict = "recorded";
+            } else if (before == null && threaded) {
+                verdict = "not checked, no baseline for " + cores + " cores";
+            } else if (before == null) {
+                verdict = "MISSING from " + file + ", run with -u to record it";
+                failures++;
+            } else {
+                // one slow timing can be other load on the machine, so time it again
+                if (ratio[e] > before * threshold)
+                    ratio[e] = Math.min(ratio[e], timings(engines.subList(e, e + 1))[0]);
+                if (ratio[e] > before * threshold) {
+                    verdict = String.format("SLOWER than %.4f by %.2fx", before, ratio[e] / before);
+                    failures++;
+                } else {
+                    verdict = String.format("ok (baseline %.4f)", before);
+                }
+            }
+            System.out.printf("%-14s %10.4f  %s%n", names.get(e), ratio[e], verdict);
+        }
+        if (update) writeBaseline(file, baseline);
+        if (failures > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,132 @@
+/**
+* @author Nolan Orloff
+*
+* load test for HW8Server
+* opens several connections to a server on this machine, sends random
+* queries on each one, and reports the latency seen by the clients
+* along with the server's own p50/p99 summary
+*
+* @see HW8Server.java
+*/
+
+import java.util.Arrays;
+import java.util.Random;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.io.*;
+
+class HW8Client {
+    // number of connections to open at once
+    public static final int NUM_CLIENTS = HW8.NUM_THREADS;
+
+    // number of queries each connection sends
+    public static final int NUM_QUERIES = 1000;
+
+    // fraction of queries that ask for a whole tree instead of one path
+    public static final double SSSP_FRACTION = 0.05;
+
+    /**
+    * read one response from the server
+    *
+    * @param in responses from the server
+    *
+    * @return the response without its terminating empty line
+    */
+    public static String readResponse(BufferedReader in) throws IOException {
+        StringBuilder out = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            out.append(line).append("\n");
+        }
+        return out.toString();
+    }
+
+    /**
+    * send random queries to the server one at a time and time each round trip
+    *
+    * @param port the port the server is listening on
+    * @param num_nodes number of nodes in the graph
+    * @param seed seed for the random queries
+    *
+    * @return round trip time of each query in nanoseconds
+    */
+    public static long[] drive(int port, int num_nodes, long seed) throws IOException {
+        Random rand = new Random(seed);
+        long[] out = new long[NUM_QUERIES];
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            int start = rand.nextInt(num_nodes);
+            long sent = System.nanoTime();
+            if (rand.nextDouble() < SSSP_FRACTION)
+                writer.println("sssp " + start);
+            else
+                writer.println("path " + start + " " + rand.nextInt(num_nodes));
+            writer.flush();
+            readResponse(reader);
+            out[i] = System.nanoTime() - sent;
+        }
+        writer.println("quit");
+        writer.flush();
+        socket.close();
+        return out;
+    }
+
+    /**
+    * run the load test and print the results
+    *
+    * @param args port the server is listening on, and the number of nodes in its graph
+    */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2) {
+            System.out.println("usage: java HW8Client <port> <num_nodes>");
+            System.exit(1);
+        }
+        final int port = Integer.parseInt(args[0]);
+        final int num_nodes = Integer.parseInt(args[1]);
+        final long[][] results = new long[NUM_CLIENTS][];
+        Thread[] clients = new Thread[NUM_CLIENTS];
+        long begin = System.nanoTime();
+        for (int t = 0; t < NUM_CLIENTS; t++) {
+            final int index = t;
+            clients[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        results[index] = drive(port, num_nodes, index);
+                    } catch (IOException e) {
+                        System.err.println("client " + index + " failed: " + e);
+                        results[index] = new long[0];
+                    }
+                }
+            });
+            clients[t].start();
+        }
+        for (Thread t : clients) {
+            t.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        int total = 0;
+        for (long[] r : results) total += r.length;
+        long[] sorted = new long[total];
+        int next = 0;
+        for (long[] r : results) {
+            System.arraycopy(r, 0, sorted, next, r.length);
+            next += r.length;
+        }
+        Arrays.sort(sorted);
+        System.out.println("client queries: " + total
+            + " throughput: " + (long) (total / (elapsed / 1e9)) + "/s"
+            + " p50: " + HW8Server.percentile(sorted, 50) / 1000 + "us"
+            + " p99: " + HW8Server.percentile(sorted, 99) / 1000 + "us");
+
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        writer.println("stats");
+        System.out.print("server " + readResponse(reader));
+        writer.println("quit");
+        socket.close();
+    }
+}
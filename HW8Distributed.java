@@ -0,0 +1,245 @@
+/**
+* @author Nolan Orloff
+*
+* partitioned SSSP for graphs that do not fit on one machine
+* and output the shortest-path tree to the command line
+*
+* the vertices are split into contiguous ranges, one per shard, and each shard
+* only holds the outgoing edges of its own vertices
+* the shards run in supersteps (bulk synchronous parallel):
+*     apply the distance updates other shards sent last superstep
+*     run Dijkstra's algorithm over the local edges from the improved vertices
+*     batch up improved distances to other shards' vertices, one batch per shard,
+*     keeping only the best distance for each vertex
+*     exchange batches, then add up how many updates were sent by everyone
+* when a superstep ends with no updates sent anywhere, every distance is final
+*
+* shards talk only through a Transport; here they are threads connected by a
+* LoopbackTransport, standing in for processes connected by a network
+*
+* @see Transport.java
+* @see LoopbackTransport.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.io.*;
+
+class HW8Distributed {
+    // vertex to use as root
+    // must be less than total number of vertices in graph
+    public static final int START_NODE = HW8.START_NODE;
+
+    // number of shards to split the graph into
+    public static final int NUM_SHARDS = 4;
+
+    // supersteps taken by the last call to solve, reported by main
+    private static int supersteps;
+
+    /**
+    * the part of the graph owned by one shard, and the search state for it
+    * an update message is three ints: vertex, distance, parent
+    *
+    * @param index this shard's number
+    * @param lo first vertex owned by this shard
+    * @param hi one past the last vertex owned by this shard
+    * @param size number of vertices in each shard's range
+    * @param offsets index of the first local edge of each owned vertex
+    * @param targets destination vertex of each local edge
+    * @param weights cost of traversing each local edge
+    * @param dist cost of the shortest known path to each owned vertex
+    * @param parent previous vertex on the shortest known path to each owned vertex
+    */
+    public static class Shard implements Runnable {
+        private final int index;
+        private final int lo;
+        private final int hi;
+        private final int size;
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] weights;
+        private final int[] dist;
+        private final int[] parent;
+        private final Transport transport;
+        private final int start;
+        private final PriorityQueue<long[]> heap;
+        private int supersteps;
+
+        /**
+        * initialize the object by copying this shard's slice of the graph
+        *
+        * @param graph the whole graph
+        * @param index this shard's number
+        * @param transport connection to the other shards
+        * @param start the root node of the shortest-path tree
+        */
+        public Shard(Graph graph, int index, Transport transport, int start) {
+            this.index = index;
+            this.transport = transport;
+            this.start = start;
+            this.size = (graph.n + transport.shards() - 1) / transport.shards();
+            this.lo = Math.min(graph.n, index * size);
+            this.hi = Math.min(graph.n, lo + size);
+            this.offsets = new int[hi - lo + 1];
+            for (int v = lo; v < hi; v++) {
+                offsets[v - lo + 1] = offsets[v - lo] + graph.degree(v);
+            }
+            this.targets = Arrays.copyOfRange(graph.targets, graph.offsets[lo], graph.offsets[hi]);
+            this.weights = Arrays.copyOfRange(graph.weights, graph.offsets[lo], graph.offsets[hi]);
+            this.dist = new int[hi - lo];
+            this.parent = new int[hi - lo];
+            Arrays.fill(dist, HW8Heap.INFINITY);
+            Arrays.fill(parent, -1);
+            this.heap = new PriorityQueue<long[]>(16, new Comparator<long[]>() {
+                public int compare(long[] left, long[] right) {
+                    return Long.compare(left[0], right[0]);
+                }
+            });
+        }
+
+        /**
+        * get the shard that owns a vertex
+        *
+        * @param node the vertex
+        *
+        * @return the owning shard's number
+        */
+        private int owner(int node) {
+            return node / size;
+        }
+
+        /**
+        * lower the distance of an owned vertex if the new one is better
+        *
+        * @param node the vertex, which this shard owns
+        * @param d the new distance
+        * @param from the previous vertex on the new path
+        */
+        private void improve(int node, int d, int from) {
+            if (d < dist[node - lo]) {
+                dist[node - lo] = d;
+                parent[node - lo] = from;
+                heap.add(new long[] {d, node});
+            }
+        }
+
+        /**
+        * run Dijkstra's algorithm over the local edges until the heap is empty
+        * improvements to other shards' vertices are collected for sending
+        *
+        * @param outgoing best update found so far for each remote vertex, by shard
+        */
+        private void relax(List<Map<Integer, int[]>> outgoing) {
+            while (!heap.isEmpty()) {
+                long[] top = heap.poll();
+                int node = (int) top[1];
+                int d = (int) top[0];
+                if (d > dist[node - lo]) continue;
+                for (int i = offsets[node - lo]; i < offsets[node - lo + 1]; i++) {
+                    int next = targets[i];
+                    int nd = d + weights[i];
+                    int to = owner(next);
+                    if (to == index) {
+                        improve(next, nd, node);
+                    } else {
+                        int[] best = outgoing.get(to).get(next);
+                        if (best == null || nd < best[1])
+                            outgoing.get(to).put(next, new int[] {next, nd, node});
+                    }
+                }
+            }
+        }
+
+        /**
+        * run supersteps until no shard has anything left to send
+        */
+        @Override
+        public void run() {
+            try {
+                if (start >= lo && start < hi) improve(start, 0, start);
+                List<Map<Integer, int[]>> outgoing = new ArrayList<Map<Integer, int[]>>();
+                for (int s = 0; s < transport.shards(); s++) {
+                    outgoing.add(new HashMap<Integer, int[]>());
+                }
+                long sent = 1;
+                while (sent > 0) {
+                    relax(outgoing);
+                    long count = 0;
+                    for (int s = 0; s < transport.shards(); s++) {
+                        Map<Integer, int[]> updates = outgoing.get(s);
+                        if (updates.isEmpty()) continue;
+                        int[] batch = new int[updates.size() * 3];
+                        int next = 0;
+                        for (int[] u : updates.values()) {
+                            batch[next++] = u[0];
+                            batch[next++] = u[1];
+                            batch[next++] = u[2];
+                        }
+                        transport.send(index, s, batch);
+                        count += updates.size();
+                        updates.clear();
+                    }
+                    for (int[] batch : transport.exchange(index)) {
+                        for (int i = 0; i < batch.length; i += 3) {
+                            improve(batch[i], batch[i + 1], batch[i + 2]);
+                        }
+                    }
+                    sent = transport.sum(index, count);
+                    supersteps++;
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+    * solve SSSP by splitting the graph into shards that run as threads
+    *
+    * @param graph the graph to search
+    * @param start the root node of the shortest-path tree
+    * @param shardP number of shards
+    *
+    * @return the shortest-path tree gathered from every shard
+    */
+    public static Tree solve(Graph graph, int start, int shardP) throws InterruptedException {
+        Transport transport = new LoopbackTransport(shardP);
+        Shard[] shards = new Shard[shardP];
+        Thread[] threads = new Thread[shardP];
+        for (int s = 0; s < shardP; s++) {
+            shards[s] = new Shard(graph, s, transport, start);
+            threads[s] = new Thread(shards[s]);
+            threads[s].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        int[] dist = new int[graph.n];
+        int[] parent = new int[graph.n];
+        for (Shard s : shards) {
+            System.arraycopy(s.dist, 0, dist, s.lo, s.hi - s.lo);
+            System.arraycopy(s.parent, 0, parent, s.lo, s.hi - s.lo);
+        }
+        supersteps = shards[0].supersteps;
+        return new Tree(start, dist, parent);
+    }
+
+    /**
+    * calculate and print the shortest-path tree for the graph in the supplied file
+    *
+    * @param args optional number of shards
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        int shardP = args.length > 0 ? Integer.parseInt(args[0]) : NUM_SHARDS;
+        Tree tree = solve(Graph.load(), START_NODE, shardP);
+        System.err.println(shardP + " shards, " + supersteps + " supersteps");
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        tree.write(out);
+        out.flush();
+    }
+}
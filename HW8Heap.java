@@ -0,0 +1,341 @@
+/**
+* @author Nolan Orloff
+*
+* Dijkstra's SSSP using a binary heap over the adjacency representation
+* of the graph, and output the shortest-path tree to the command line
+*
+* a Search object owns the scratch arrays for one query at a time,
+* so a long-running process can keep one per thread and reuse it
+* vertex ids passed to and returned from a Search are the ids in the input
+* file, even when the graph has been relabeled for locality
+*
+* @see Graph.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.io.*;
+
+class HW8Heap {
+    // vertex to use as root
+    // must be less than total number of vertices in graph
+    public static final int START_NODE = HW8.START_NODE;
+
+    // distance of a vertex that has not been reached
+    public static final int INFINITY = Integer.MAX_VALUE;
+
+    /**
+    * one single-source search over a graph
+    * the heap is keyed by distance, see PackedHeap.java
+    *
+    * the scratch arrays are never cleared between searches
+    * each search gets a new epoch, and a slot only counts as written by this search
+    * when its stamp matches the epoch, so the cost of a search is proportional
+    * to the part of the graph it explores rather than to the size of the graph
+    *
+    * @param graph the graph to search
+    * @param dist cost of the shortest known path to each vertex
+    * @param parent previous vertex on the shortest known path to each vertex
+    * @param reached epoch in which each vertex was last given a distance
+    * @param done epoch in which each vertex was last settled
+    * @param order settled vertices in the order they were settled
+    * @param heap vertices waiting to be settled, keyed by distance
+    */
+    public static class Search {
+        private final Graph graph;
+        private final int[] dist;
+        private final int[] parent;
+        private final int[] reached;
+        private final int[] done;
+        private final int[] order;
+        private int epoch;
+        private final PackedHeap heap;
+        private int start;
+        private int settled;
+        private boolean complete;
+
+        /**
+        * initialize the object
+        *
+        * @param graph the graph to search
+        */
+        public Search(Graph graph) {
+            this.graph = graph;
+            this.dist = new int[graph.n];
+            this.parent = new int[graph.n];
+            this.reached = new int[graph.n];
+            this.done = new int[graph.n];
+            this.order = new int[graph.n];
+            this.heap = new PackedHeap(graph.n);
+            this.start = -1;
+            Arrays.fill(dist, INFINITY);
+            Arrays.fill(parent, -1);
+        }
+
+        /**
+        * compute the shortest-path tree rooted at a vertex
+        *
+        * @param start the root node of the shortest-path tree
+        */
+        public void solve(int start) {
+            run(graph.internal(start), INFINITY, graph.n, -1);
+        }
+
+        /**
+        * compute the shortest paths to every vertex within a cost of the root
+        * stops as soon as the next vertex to settle is further away than the radius
+        *
+        * @param start the root node of the shortest-path tree
+        * @param radius the highest path cost to include
+        */
+        public void solveWithin(int start, int radius) {
+            run(graph.internal(start), radius, graph.n, -1);
+        }
+
+        /**
+        * compute the shortest paths to the k vertices closest to the root
+        * stops as soon as k vertices other than the root have been settled
+        * ties at the k-th distance are broken by the heap order
+        *
+        * @param start the root node of the shortest-path tree
+        * @param k the number of vertices to find
+        */
+        public void solveNearest(int start, int k) {
+            run(graph.internal(start), INFINITY, (int) Math.min(graph.n, (long) k + 1), -1);
+        }
+
+        /**
+        * compute the shortest path between two vertices
+        * stops as soon as the destination is settled
+        *
+        * @param start the root node of the shortest-path tree
+        * @param end the destination vertex
+        */
+        public void solveTo(int start, int end) {
+            run(graph.internal(start), INFINITY, graph.n, graph.internal(end));
+        }
+
+        /**
+        * run Dijkstra's algorithm until the heap is empty or a bound is hit
+        *
+        * @param start the root node of the shortest-path tree
+        * @param radius the highest path cost to settle
+        * @param limit the most vertices to settle, including the root
+        * @param end vertex to stop after settling, or -1 to keep going
+        */
+        private void run(int start, int radius, int limit, int end) {
+            nextEpoch();
+            this.start = start;
+            settled = 0;
+            heap.clear();
+            complete = false;
+            reached[start] = epoch;
+            dist[start] = 0;
+            parent[start] = start;
+            heap.push(0, start);
+            while (heap.size() > 0) {
+                long top = heap.pop();
+                int node = PackedHeap.node(top);
+                int d = PackedHeap.key(top);
+                if (done[node] == epoch) continue;
+                if (d > radius || settled == limit) return;
+                done[node] = epoch;
+                order[settled++] = node;
+                if (node == end) return;
+                for (int i = graph.offsets[node]; i < graph.offsets[node + 1]; i++) {
+                    int next = graph.targets[i];
+                    long nd = (long) d + graph.weights[i];
+                    if (reached[next] != epoch || nd < dist[next]) {
+                        reached[next] = epoch;
+                        dist[next] = (int) nd;
+                        parent[next] = node;
+                        heap.push((int) nd, next);
+                    }
+                }
+            }
+            complete = true;
+        }
+
+        /**
+        * move to a new epoch so every slot written by earlier searches is stale
+        * the stamps are only cleared when the epoch counter would wrap around
+        */
+        private void nextEpoch() {
+            if (epoch == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                Arrays.fill(done, 0);
+                epoch = 0;
+            }
+            epoch++;
+        }
+
+        /**
+        * get the cost of the shortest path to a vertex
+        *
+        * @param node the destination vertex
+        *
+        * @return the cost of the path or INFINITY if it was not settled by the last search
+        */
+        public int dist(int node) {
+            node = graph.internal(node);
+            return done[node] == epoch ? dist[node] : INFINITY;
+        }
+
+        /**
+        * get the previous vertex on the shortest path to a vertex
+        *
+        * @param node the destination vertex
+        *
+        * @return the previous vertex, the vertex itself for the root, or -1 if it was not settled
+        */
+        public int parent(int node) {
+            node = graph.internal(node);
+            return done[node] == epoch ? graph.original(parent[node]) : -1;
+        }
+
+        /**
+        * get the root of the last search
+        *
+        * @return the root node or -1 before the first search
+        */
+        public int start() {
+            return start < 0 ? -1 : graph.original(start);
+        }
+
+        /**
+        * get the number of vertices settled by the last search
+        *
+        * @return number of vertices popped with their final distance
+        */
+        public int settled() {
+            return settled;
+        }
+
+        /**
+        * get a vertex settled by the last search
+        *
+        * @param i position in the order the vertices were settled, 0 is the root
+        *
+        * @return the i-th closest vertex to the root
+        */
+        public int settledNode(int i) {
+            return graph.original(order[i]);
+        }
+
+        /**
+        * did the last search settle every vertex reachable from the root?
+        *
+        * @return false if the search stopped at a bound before running out of vertices
+        */
+        public boolean complete() {
+            return complete;
+        }
+
+        /**
+        * get the shortest path to a vertex in the same form as HW8 builds them
+        * the first edge is the identity edge at the root
+        *
+        * @param node the destination vertex
+        *
+        * @return the path to the vertex or a path with no edges if it was not reached
+        */
+        public HW8.Path path(int node) {
+            if (dist(node) == INFINITY) return new HW8.Path();
+            List<Data.Edge> edges = new ArrayList<Data.Edge>();
+            node = graph.internal(node);
+            while (node != start) {
+                int prev = parent[node];
+                edges.add(new Data.Edge(graph.original(prev), graph.original(node), dist[node] - dist[prev]));
+                node = prev;
+            }
+            edges.add(new Data.Edge(graph.original(start), graph.original(start), 0));
+            List<Data.Edge> forward = new ArrayList<Data.Edge>(edges.size());
+            for (int i = edges.size() - 1; i >= 0; i--) {
+                forward.add(edges.get(i));
+            }
+            return new HW8.Path(forward);
+        }
+
+        /**
+        * get the shortest-path tree from the last search
+        *
+        * @return a path to every settled vertex other than the root, closest first
+        */
+        public List<HW8.Path> paths() {
+            List<HW8.Path> out = new ArrayList<HW8.Path>();
+            for (int i = 1; i < settled; i++) {
+                out.add(path(graph.original(order[i])));
+            }
+            return out;
+        }
+
+        /**
+        * get the shortest-path tree from the last search as arrays
+        * indexed by the ids from the input file
+        *
+        * @return the tree, with vertices that were not settled left unreached
+        */
+        public Tree tree() {
+            int[] treeDist = new int[graph.n];
+            int[] treeParent = new int[graph.n];
+            Arrays.fill(treeDist, INFINITY);
+            Arrays.fill(treeParent, -1);
+            for (int i = 0; i < settled; i++) {
+                int id = graph.original(order[i]);
+                treeDist[id] = dist[order[i]];
+                treeParent[id] = graph.original(parent[order[i]]);
+            }
+            return new Tree(start(), treeDist, treeParent);
+        }
+    }
+
+    /**
+    * run the algorithm on the provided graph and print the shortest-path tree
+    * with "-r <radius>" only vertices within that cost of the root are printed
+    * with "-k <count>" only that many of the closest vertices are printed
+    * with "-o <order>" the graph is relabeled for locality when it is loaded,
+    *     see Reorder.java, and the output still uses the ids from the file
+    * with "-w <file>" the tree is also saved as a snapshot, along with the bound
+    * with "-l <file>" the tree is loaded from a snapshot instead of solved,
+    *     which has to have been saved with the same bound
+    * the paths are printed in vertex order, so a loaded tree prints the same
+    * as a solved one
+    *
+    * @param args optional bound on the search, vertex order and snapshot file
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        int radius = INFINITY;
+        int k = -1;
+        String order = Reorder.NONE;
+        String save = null;
+        String restore = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("-r")) radius = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-k")) k = Integer.parseInt(args[i + 1]);
+            else if (args[i].equals("-o")) order = args[i + 1];
+            else if (args[i].equals("-w")) save = args[i + 1];
+            else if (args[i].equals("-l")) restore = args[i + 1];
+        }
+        if (k >= 0) radius = INFINITY;
+        Graph graph = Graph.load(order);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        if (restore != null) {
+            Snapshot.read(graph, radius, k, restore).write(out);
+            out.flush();
+            return;
+        }
+        Search search = new Search(graph);
+        if (k >= 0)
+            search.solveNearest(START_NODE, k);
+        else if (radius != INFINITY)
+            search.solveWithin(START_NODE, radius);
+        else
+            search.solve(START_NODE);
+        Tree tree = search.tree();
+        if (save != null)
+            Snapshot.write(tree, graph, radius, k, save);
+        tree.write(out);
+        out.flush();
+    }
+}
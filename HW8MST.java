@@ -0,0 +1,313 @@
+/**
+* @author Nolan Orloff
+*
+* compute a minimum spanning forest of the input graph in parallel
+* using Boruvka's algorithm and output the trees to the command line
+*
+* each round, every component picks its cheapest edge to another component
+* the search for those edges is done as a reduction over slices of the edge list
+* and the chosen edges are then contracted with a union-find structure
+* edges are treated as undirected for the purposes of the spanning forest
+* and, like in the shortest-path solvers, edges of weight 0 are not edges
+*
+* @see HW8.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.*;
+
+class HW8MST {
+    // number of threads to allocate for algorithm
+    public static final int NUM_THREADS = HW8.NUM_THREADS;
+
+    /**
+    * disjoint-set structure over the vertices of the graph
+    * used to contract the edges chosen in each round
+    *
+    * @param parent the parent of each vertex in its set's tree
+    * @param rank upper bound on the height of each set's tree
+    */
+    public static class UnionFind {
+        private int[] parent;
+        private int[] rank;
+
+        /**
+        * initialize the object with every vertex in its own set
+        *
+        * @param num_nodes number of nodes in the graph
+        */
+        public UnionFind(int num_nodes) {
+            parent = new int[num_nodes];
+            rank = new int[num_nodes];
+            for (int i = 0; i < num_nodes; i++) {
+                parent[i] = i;
+            }
+        }
+
+        /**
+        * get the representative vertex of the set containing a vertex
+        * compresses the path to the representative as it goes
+        *
+        * @param node the vertex to search for
+        *
+        * @return the representative of the vertex's set
+        */
+        public int find(int node) {
+            int root = node;
+            while (parent[root] != root) {
+                root = parent[root];
+            }
+            while (parent[node] != root) {
+                int next = parent[node];
+                parent[node] = root;
+                node = next;
+            }
+            return root;
+        }
+
+        /**
+        * merge the sets containing two vertices
+        *
+        * @param a a vertex in the first set
+        * @param b a vertex in the second set
+        *
+        * @return false if the vertices were already in the same set
+        */
+        public boolean union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) return false;
+            if (rank[rootA] < rank[rootB]) {
+                int swap = rootA;
+                rootA = rootB;
+                rootB = swap;
+            }
+            parent[rootB] = rootA;
+            if (rank[rootA] == rank[rootB]) rank[rootA]++;
+            return true;
+        }
+    }
+
+    /**
+    * Tally class for finding the cheapest edge leaving each component in parallel
+    *
+    * input is a list of edges
+    * tally object has the component label of every vertex for the current round
+    * and the cheapest known edge leaving each component
+    *     on accum, offer the edge to the components at both of its ends
+    *     on combine, keep the cheaper edge for each component
+    * ties are broken by vertex ids so every thread agrees on the same edge
+    * and the edges chosen in one round can never form a cycle
+    *
+    * @param component representative vertex of each vertex's component
+    * @param cheapest cheapest edge leaving each component, indexed by representative
+    */
+    public static class MinEdge implements Tally<Data.Edge> {
+        private int[] component;
+        private Data.Edge[] cheapest;
+
+        /**
+        * initialize the object
+        *
+        * @param component representative vertex of each vertex's component
+        *                  shared between tallies and not modified
+        */
+        public MinEdge(int[] component) {
+            this.component = component;
+            this.cheapest = new Data.Edge[component.length];
+        }
+
+        /**
+        * get a new object with the same data as this one
+        *
+        * @return unique object with the same cheapest edges
+        */
+        public MinEdge clone() {
+            MinEdge other = new MinEdge(component);
+            for (int i = 0; i < cheapest.length; i++) {
+                other.cheapest[i] = cheapest[i];
+            }
+            return other;
+        }
+
+        /**
+        * get the cheapest edge leaving the component with the given representative
+        *
+        * @param root representative vertex of the component
+        *
+        * @return the cheapest edge or null if nothing leaves the component
+        */
+        public Data.Edge get(int root) {
+            return cheapest[root];
+        }
+
+        /**
+        * This method acts as a factory to create new objects of the same type.
+        *
+        * @return a new identity object
+        */
+        @Override
+        public MinEdge init() {
+            return new MinEdge(component);
+        }
+
+        /**
+        * Accumulate a data element into this object.
+        *
+        * @param elem data element to accumulate into the object
+        */
+        @Override
+        public void accum(Data.Edge elem) {
+            if (elem.weight == 0) return;       // a weight of 0 means there is no edge
+            int from = component[elem.start];
+            int to = component[elem.end];
+            if (from == to) return;
+            offer(from, elem);
+            offer(to, elem);
+        }
+
+        /**
+        * Combing this object with another.
+        * We assume that the the other is the exact same type and size.
+        * Used to combine subtrees in a reduction or scan.
+        *
+        * @param other the right side of the reduction evaluation tree
+        */
+        @Override
+        public void combine(Tally<Data.Edge> other) {
+            MinEdge right = (MinEdge) other;
+            for (int i = 0; i < cheapest.length; i++) {
+                if (right.cheapest[i] != null)
+                    offer(i, right.cheapest[i]);
+            }
+        }
+
+        /**
+        * replace the cheapest edge for a component if the new edge is cheaper
+        *
+        * @param root representative vertex of the component
+        * @param edge candidate edge leaving the component
+        */
+        private void offer(int root, Data.Edge edge) {
+            if (cheapest[root] == null || lighter(edge, cheapest[root]))
+                cheapest[root] = edge;
+        }
+
+        /**
+        * total order on edges by weight, then by their vertices
+        *
+        * @param left the first edge
+        * @param right the second edge
+        *
+        * @return true if left comes strictly before right
+        */
+        private static boolean lighter(Data.Edge left, Data.Edge right) {
+            if (left.weight != right.weight) return left.weight < right.weight;
+            int leftLow = Math.min(left.start, left.end);
+            int rightLow = Math.min(right.start, right.end);
+            if (leftLow != rightLow) return leftLow < rightLow;
+            return Math.max(left.start, left.end) < Math.max(right.start, right.end);
+        }
+    }
+
+    /**
+    * run Boruvka's algorithm on a list of edges
+    *
+    * @param edges the edges in the graph
+    * @param num_nodes number of nodes in the graph
+    *
+    * @return the edges in a minimum spanning forest of the graph
+    */
+    @SuppressWarnings("unchecked")
+    public static List<Data.Edge> boruvka(List<Data.Edge> edges, int num_nodes) {
+        List<Data.Edge> forest = new ArrayList<Data.Edge>();
+        UnionFind sets = new UnionFind(num_nodes);
+        int[] component = new int[num_nodes];
+        for (int i = 0; i < num_nodes; i++) {
+            component[i] = i;
+        }
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            MinEdge reduction = (MinEdge) new Reduce(edges, NUM_THREADS, new MinEdge(component)).reduce();
+            for (int i = 0; i < num_nodes; i++) {
+                Data.Edge e = reduction.get(i);
+                if (e != null && sets.union(e.start, e.end)) {
+                    forest.add(e);
+                    merged = true;
+                }
+            }
+            for (int i = 0; i < num_nodes; i++) {
+                component[i] = sets.find(i);
+            }
+        }
+        return forest;
+    }
+
+    /**
+    * group the edges of a spanning forest by tree
+    * trees are listed in order of their lowest vertex
+    *
+    * @param forest edges in the spanning forest
+    * @param num_nodes number of nodes in the graph
+    *
+    * @return the edges in each tree of the forest that has at least one edge
+    */
+    public static List<List<Data.Edge>> trees(List<Data.Edge> forest, int num_nodes) {
+        UnionFind sets = new UnionFind(num_nodes);
+        for (Data.Edge e : forest) {
+            sets.union(e.start, e.end);
+        }
+        int[] index = new int[num_nodes];
+        List<List<Data.Edge>> out = new ArrayList<List<Data.Edge>>();
+        for (int i = 0; i < num_nodes; i++) {
+            int root = sets.find(i);
+            if (index[root] == 0) {
+                out.add(new ArrayList<Data.Edge>());
+                index[root] = out.size();
+            }
+        }
+        for (Data.Edge e : forest) {
+            out.get(index[sets.find(e.start)] - 1).add(e);
+        }
+        List<List<Data.Edge>> nonEmpty = new ArrayList<List<Data.Edge>>();
+        for (List<Data.Edge> tree : out) {
+            if (tree.size() > 0) nonEmpty.add(tree);
+        }
+        return nonEmpty;
+    }
+
+    /**
+    * get a human-readable representation of a tree
+    * uses the same format as HW8.Path so the output lines up with the SSSP solvers
+    *
+    * @param tree the edges in the tree
+    *
+    * @return a readable representation of the edges in and total cost of the tree
+    */
+    public static String toString(List<Data.Edge> tree) {
+        StringBuilder out = new StringBuilder();
+        int cost = 0;
+        for (Data.Edge e : tree) {
+            out.append("{").append(e.start).append(", ").append(e.end).append("} ");
+            cost += e.weight;
+        }
+        out.append("Cost: ").append(cost);
+        return out.toString();
+    }
+
+    /**
+    * calculate and print a minimum spanning forest for the graph in the supplied file
+    * prints one line per tree in the forest
+    *
+    * @param args unused
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        List<Data.Edge> obs = HW8.getObservations();
+        List<Data.Edge> forest = boruvka(obs, HW8.n_nodes);
+        for (List<Data.Edge> tree : trees(forest, HW8.n_nodes)) {
+            System.out.println(toString(tree));
+        }
+    }
+}
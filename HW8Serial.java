@@ -104,26 +104,25 @@ class HW8Serial {
         List<HW8.Path> paths = new ArrayList<HW8.Path>();               // initialize data structures for algorithm
         List<Integer> visited = new ArrayList<Integer>();
         List<Data.Edge> frontier = new ArrayList<Data.Edge>();
+        final int[] cost = new int[n_nodes];                            // cost of the path to each visited vertex
         paths.add(new HW8.Path(new Data.Edge(start, start, 0)));        // add the identity path as a start point for other paths
         visited.add(start);                                             // visit start
         frontier.addAll(getChildren(start, visited));                   // and add its associated edges to the frontier
         while(frontier.size() > 0) {                                    
-            Collections.sort(frontier, new Comparator<Data.Edge>() {    // sort the frontier so the first edge has the lowest weight
+            Collections.sort(frontier, new Comparator<Data.Edge>() {    // sort the frontier so the first edge ends the cheapest path
                 public int compare(Data.Edge left, Data.Edge right) {
-                    return left.weight - right.weight;
+                    return (cost[left.start] + left.weight) - (cost[right.start] + right.weight);
                 }
             });
             Data.Edge nextEdge = frontier.get(0);                       // pop the first edge
             frontier.remove(0);
+            if (visited.contains((Integer) nextEdge.end)) continue;     // a path to its destination was already found, and it was cheaper
             HW8.Path head = getPathWithEnd(nextEdge.start, paths);      // get the path that ends at the start of this edge
+            HW8.Path nextPath = head.add(nextEdge);                     // make the path that ends at the new vertex
+            cost[nextEdge.end] = nextPath.cost();
+            paths.add(nextPath);
             visited.add(nextEdge.end);                                  // traverse the edge and visit its destination vertex
             frontier.addAll(getChildren(nextEdge.end, visited));        // and add its associated edges to the frontier
-            HW8.Path nextPath = head.add(nextEdge);                     // make the path that ends at the new vertex
-            HW8.Path oldPath = getPathWithEnd(nextEdge.end, paths);     // is there already a path that ends at this vertex?
-            if (oldPath.size() == 0 || (oldPath.size() > 0 && nextPath.cost() < oldPath.cost())) {
-                paths.remove(oldPath);                                  // if it's more costly than the new path, replace it
-                paths.add(nextPath);
-            }
         }
         paths.remove(0);                                                // don't return the identity path
         return paths;                                                   // return the other paths
@@ -137,8 +136,11 @@ class HW8Serial {
     public static void main(String[] args) throws IOException, ClassNotFoundException {
         graph = makeGraph(getObservations());
         List<HW8.Path> result = dijkstras(START_NODE);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
         for (HW8.Path i : result) {
-            System.out.println(i);
+            i.write(out);
+            out.write("\n");
         }
+        out.flush();
     }
 }
\ No newline at end of file
@@ -0,0 +1,403 @@
+/**
+* @author Nolan Orloff
+*
+* long-running query server for shortest paths
+* loads the graph once and answers queries until it is told to stop
+*
+* the protocol is line based, one query per line:
+*     sssp <start>         the shortest-path tree rooted at start
+*     path <start> <end>   the shortest path from start to end
+*     within <start> <r>   the shortest paths from start that cost at most r
+*     nearest <start> <k>  the shortest paths to the k vertices closest to start
+*     stats                p50/p99 latency of the last WINDOW queries answered
+*     quit                 close this connection
+* paths are written in the same format as HW8.Path.toString
+* and every response ends with an empty line
+*
+* queries are read from stdin, or from local socket connections when a port is given
+* with "-o <order>" the graph is relabeled for locality when it is loaded,
+* see Reorder.java; queries and responses still use the ids from the file
+* incoming queries are collected into batches and handed to a pool of workers
+* queries in a batch that share a root are answered from a single search
+*
+* @see HW8Heap.java
+* @see HW8Client.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.io.*;
+
+class HW8Server {
+    // number of worker threads answering queries
+    public static final int NUM_THREADS = HW8.NUM_THREADS;
+
+    // most queries handed to the workers at once
+    public static final int BATCH_SIZE = 64;
+
+    // the graph every query runs against
+    private static Graph graph;
+
+    // queries waiting to be batched
+    private static final BlockingQueue<Query> incoming = new LinkedBlockingQueue<Query>();
+
+    // number of recent latencies kept for stats
+    public static final int WINDOW = 1 << 14;
+
+    // latency of the last WINDOW answered queries in nanoseconds, oldest overwritten first
+    private static final long[] latencies = new long[WINDOW];
+
+    // number of queries answered so far
+    private static long answered;
+
+    // placeholder for a stats request, answered by the writer when its turn comes
+    private static final Query STATS = new Query("");
+
+    // scratch space for each worker thread
+    private static final ThreadLocal<HW8Heap.Search> searches = new ThreadLocal<HW8Heap.Search>() {
+        @Override
+        protected HW8Heap.Search initialValue() {
+            return new HW8Heap.Search(graph);
+        }
+    };
+
+    /**
+    * one query from a client
+    * the response is filled in by a worker and read by the client's writer
+    *
+    * @param start root of the search
+    * @param end destination vertex, or -1 for the whole tree
+    * @param radius highest path cost to return
+    * @param k most paths to return, or -1 for no limit
+    * @param received time the query was read, in nanoseconds
+    * @param response text to send back to the client
+    */
+    public static class Query {
+        public final int start;
+        public final int end;
+        public final int radius;
+        public final int k;
+        public final long received;
+        private String response;
+        private final CountDownLatch done;
+
+        /**
+        * initialize the object
+        *
+        * @param start root of the search
+        * @param end destination vertex, or -1 for the whole tree
+        */
+        public Query(int start, int end) {
+            this(start, end, HW8Heap.INFINITY, -1);
+        }
+
+        /**
+        * initialize a bounded query for part of a tree
+        *
+        * @param start root of the search
+        * @param end destination vertex, or -1 for the whole tree
+        * @param radius highest path cost to return
+        * @param k most paths to return, or -1 for no limit
+        */
+        public Query(int start, int end, int radius, int k) {
+            this.start = start;
+            this.end = end;
+            this.radius = radius;
+            this.k = k;
+            this.received = System.nanoTime();
+            this.done = new CountDownLatch(1);
+        }
+
+        /**
+        * initialize a query that has already been answered
+        * used for requests that do not need a search
+        *
+        * @param response text to send back to the client
+        */
+        public Query(String response) {
+            this(-1, -1);
+            answer(response);
+        }
+
+        /**
+        * record the response and wake the client's writer
+        *
+        * @param response text to send back to the client
+        */
+        public void answer(String response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        /**
+        * wait for the response
+        *
+        * @return text to send back to the client
+        */
+        public String await() throws InterruptedException {
+            done.await();
+            return response;
+        }
+    }
+
+    /**
+    * parse one line of the protocol
+    *
+    * @param line the request from the client
+    *
+    * @return the query, or null if the client asked to stop
+    */
+    public static Query parse(String line) {
+        String[] words = line.trim().split("\\s+");
+        try {
+            if (words[0].equals("quit")) {
+                return null;
+            } else if (words[0].equals("stats")) {
+                return STATS;
+            } else if (words[0].equals("sssp") && words.length == 2) {
+                return checked(new Query(Integer.parseInt(words[1]), -1));
+            } else if (words[0].equals("path") && words.length == 3) {
+                return checked(new Query(Integer.parseInt(words[1]), Integer.parseInt(words[2])));
+            } else if (words[0].equals("within") && words.length == 3) {
+                return checked(new Query(Integer.parseInt(words[1]), -1, Integer.parseInt(words[2]), -1));
+            } else if (words[0].equals("nearest") && words.length == 3) {
+                return checked(new Query(Integer.parseInt(words[1]), -1, HW8Heap.INFINITY, Integer.parseInt(words[2])));
+            }
+        } catch (NumberFormatException e) {
+            return new Query("error: bad vertex in \"" + line.trim() + "\"\n");
+        }
+        return new Query("error: unknown request \"" + line.trim() + "\"\n");
+    }
+
+    /**
+    * reject queries for vertices that are not in the graph
+    *
+    * @param query the parsed query
+    *
+    * @return the query, or an answered error query
+    */
+    private static Query checked(Query query) {
+        if (query.start < 0 || query.start >= graph.n || query.end < -1 || query.end >= graph.n)
+            return new Query("error: vertex out of range\n");
+        if (query.radius < 0 || query.k < -1)
+            return new Query("error: negative bound\n");
+        return query;
+    }
+
+    /**
+    * answer every query in a batch
+    * queries that share a root reuse the same search
+    * bounded queries run their own search, which stops at the bound
+    * a path query with no full tree cached for its root stops at the destination
+    * every query gets a response, an "error:" line if its search failed
+    *
+    * @param batch queries to answer, grouped by root
+    */
+    public static void answer(List<Query> batch) {
+        HW8Heap.Search search = searches.get();
+        for (Query q : batch) {
+            String response = "error: search failed\n";
+            try {
+                boolean cached = search.start() == q.start && search.complete();
+                if (q.k >= 0)
+                    search.solveNearest(q.start, q.k);
+                else if (q.radius != HW8Heap.INFINITY)
+                    search.solveWithin(q.start, q.radius);
+                else if (q.end >= 0 && !cached)
+                    search.solveTo(q.start, q.end);
+                else if (!cached)
+                    search.solve(q.start);
+                StringBuilder out = new StringBuilder();
+                if (q.end < 0) {
+                    for (HW8.Path p : search.paths()) {
+                        out.append(p).append("\n");
+                    }
+                } else if (search.dist(q.end) == HW8Heap.INFINITY) {
+                    out.append("unreachable\n");
+                } else {
+                    out.append(search.path(q.end)).append("\n");
+                }
+                response = out.toString();
+            } catch (RuntimeException e) {
+                response = "error: " + e + "\n";
+            } finally {
+                long elapsed = System.nanoTime() - q.received;
+                synchronized (latencies) {
+                    latencies[(int) (answered++ % WINDOW)] = elapsed;
+                }
+                q.answer(response);
+            }
+        }
+    }
+
+    /**
+    * take queries off the incoming queue in batches and hand them to the workers
+    * waits for one query, then takes whatever else has arrived up to BATCH_SIZE
+    *
+    * @param pool the workers
+    */
+    public static void dispatch(ExecutorService pool) throws InterruptedException {
+        List<Query> batch = new ArrayList<Query>();
+        while (true) {
+            batch.clear();
+            batch.add(incoming.take());
+            incoming.drainTo(batch, BATCH_SIZE - 1);
+            Map<Integer, List<Query>> byStart = new LinkedHashMap<Integer, List<Query>>();
+            for (Query q : batch) {
+                List<Query> group = byStart.get(q.start);
+                if (group == null) {
+                    group = new ArrayList<Query>();
+                    byStart.put(q.start, group);
+                }
+                group.add(q);
+            }
+            List<List<Query>> work = new ArrayList<List<Query>>(byStart.values());
+            int per = (work.size() + NUM_THREADS - 1) / NUM_THREADS;
+            for (int i = 0; i < work.size(); i += per) {
+                final List<Query> slice = new ArrayList<Query>();
+                for (List<Query> group : work.subList(i, Math.min(i + per, work.size()))) {
+                    slice.addAll(group);
+                }
+                pool.execute(new Runnable() {
+                    public void run() {
+                        answer(slice);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+    * read queries from a client and write the responses back in order
+    * reading runs ahead of writing so a client can pipeline its queries
+    * stats are taken when the writer gets to them, so they include every
+    * query the client sent before asking
+    *
+    * @param in requests from the client
+    * @param out responses to the client
+    */
+    public static void serve(BufferedReader in, final PrintWriter out) throws IOException, InterruptedException {
+        final BlockingQueue<Query> pending = new LinkedBlockingQueue<Query>();
+        final Query stop = new Query("");
+        Thread writer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (Query q = pending.take(); q != stop; q = pending.take()) {
+                        out.print(q == STATS ? stats() + "\n" : q.await());
+                        out.println();
+                        out.flush();
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        writer.start();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().isEmpty()) continue;
+            Query q = parse(line);
+            if (q == null) break;
+            pending.put(q);
+            if (q.start >= 0) incoming.put(q);
+        }
+        pending.put(stop);
+        writer.join();
+    }
+
+    /**
+    * get the p50 and p99 latency of the last WINDOW queries answered
+    *
+    * @return a human-readable summary of the latencies
+    */
+    public static String stats() {
+        long[] sorted;
+        long count;
+        synchronized (latencies) {
+            count = answered;
+            sorted = Arrays.copyOf(latencies, (int) Math.min(count, WINDOW));
+        }
+        Arrays.sort(sorted);
+        return "queries: " + count
+            + " p50: " + percentile(sorted, 50) / 1000 + "us"
+            + " p99: " + percentile(sorted, 99) / 1000 + "us";
+    }
+
+    /**
+    * get a percentile from a sorted array using the nearest-rank method
+    *
+    * @param sorted values in ascending order
+    * @param p the percentile, 0 to 100
+    *
+    * @return the value at the percentile, or 0 if there are no values
+    */
+    public static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    /**
+    * load the graph and answer queries until stdin closes
+    * or, when a port is given, accept local connections until killed
+    *
+    * @param args optional vertex order and port to listen on
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException, InterruptedException {
+        String order = Reorder.NONE;
+        if (args.length >= 2 && args[0].equals("-o")) {
+            order = args[1];
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        graph = Graph.load(order);
+        final ExecutorService pool = Executors.newFixedThreadPool(NUM_THREADS);
+        Thread dispatcher = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    dispatch(pool);
+                } catch (InterruptedException e) {
+                    // shutting down
+                }
+            }
+        });
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        System.err.println("loaded " + graph.n + " nodes, " + graph.edgeCount() + " edges");
+
+        if (args.length == 0) {
+            serve(new BufferedReader(new InputStreamReader(System.in)),
+                  new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out))));
+            System.err.println(stats());
+            pool.shutdown();
+            return;
+        }
+
+        ServerSocket listener = new ServerSocket(Integer.parseInt(args[0]), 50, InetAddress.getLoopbackAddress());
+        System.err.println("listening on port " + listener.getLocalPort());
+        while (true) {
+            final Socket client = listener.accept();
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        serve(new BufferedReader(new InputStreamReader(client.getInputStream())),
+                              new PrintWriter(new BufferedWriter(new OutputStreamWriter(client.getOutputStream()))));
+                        client.close();
+                    } catch (IOException | InterruptedException e) {
+                        System.err.println("client failed: " + e);
+                    }
+                }
+            }).start();
+        }
+    }
+}
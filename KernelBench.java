@@ -0,0 +1,132 @@
+/**
+* @author Nolan Orloff
+*
+* microbenchmark of the scalar kernels against the vector kernels
+* each kernel is warmed up, then timed over several rounds on the same inputs,
+* and the median time per element is reported
+*
+* run with the vector module so both versions can be loaded:
+*     java --add-modules jdk.incubator.vector KernelBench
+*
+* @see Kernels.java
+* @see VectorKernels.java
+*/
+
+import java.util.Arrays;
+import java.util.Random;
+
+class KernelBench {
+    // number of elements in each array
+    public static final int SIZE = 1 << 16;
+
+    // untimed calls before measuring, so the JIT has compiled the loops
+    public static final int WARMUP = 2000;
+
+    // timed rounds, the median is reported
+    public static final int ROUNDS = 15;
+
+    // calls per timed round
+    public static final int CALLS = 200;
+
+    // keeps results live so the JIT can't drop the work
+    private static long sink;
+
+    /**
+    * one kernel call on prepared inputs
+    */
+    interface Body {
+        void run(Kernels k);
+    }
+
+    /**
+    * time a kernel and get the median cost per element
+    *
+    * @param k the kernels to time
+    * @param body the call to time
+    *
+    * @return median nanoseconds per element
+    */
+    private static double time(Kernels k, Body body) {
+        for (int i = 0; i < WARMUP; i++) {
+            body.run(k);
+        }
+        double[] rounds = new double[ROUNDS];
+        for (int r = 0; r < ROUNDS; r++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                body.run(k);
+            }
+            rounds[r] = (System.nanoTime() - begin) / (double) CALLS / SIZE;
+        }
+        Arrays.sort(rounds);
+        return rounds[ROUNDS / 2];
+    }
+
+    /**
+    * time one kernel with both versions and print a row of the report
+    *
+    * @param name the kernel
+    * @param scalar the scalar kernels
+    * @param vector the vector kernels
+    * @param body the call to time
+    */
+    private static void report(String name, Kernels scalar, Kernels vector, Body body) {
+        double s = time(scalar, body);
+        double v = time(vector, body);
+        System.out.printf("%-10s scalar %6.3f ns/elem   vector %6.3f ns/elem   speedup %5.2fx%n", name, s, v, s / v);
+    }
+
+    /**
+    * run every kernel with both versions and print the results
+    *
+    * @param args unused
+    */
+    public static void main(String[] args) {
+        Kernels scalar = Kernels.choose("scalar");
+        Kernels vector = Kernels.choose("vector");
+        System.out.println(SIZE + " elements, " + vector.name());
+
+        Random rand = new Random(0);
+        final int[] a = new int[SIZE];
+        final int[] b = new int[SIZE];
+        final int[] parentA = new int[SIZE];
+        final int[] parentB = new int[SIZE];
+        final int[] targets = new int[SIZE];
+        final int[] weights = new int[SIZE];
+        final int[] out = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            a[i] = rand.nextInt(1 << 20);
+            b[i] = a[i] + rand.nextInt(64) - 1;     // about 1 in 64 lower
+            targets[i] = rand.nextInt(SIZE);
+            weights[i] = 1 + rand.nextInt(1024);
+        }
+        final int[] scratch = new int[SIZE];
+        final int[] scratchParent = new int[SIZE];
+
+        report("minMerge", scalar, vector, new Body() {
+            public void run(Kernels k) {
+                System.arraycopy(a, 0, scratch, 0, SIZE);
+                k.minMerge(scratch, parentA, b, parentB);
+                sink += scratch[SIZE - 1];
+            }
+        });
+        report("relax", scalar, vector, new Body() {
+            public void run(Kernels k) {
+                System.arraycopy(a, 0, scratch, 0, SIZE);
+                k.relax(scratch, scratchParent, 0, 1 << 19, targets, weights, 0, SIZE);
+                sink += scratch[SIZE - 1];
+            }
+        });
+        report("compact", scalar, vector, new Body() {
+            public void run(Kernels k) {
+                sink += k.compact(a, b, out);
+            }
+        });
+        report("missing", scalar, vector, new Body() {
+            public void run(Kernels k) {
+                sink += k.missing(b, a, out);
+            }
+        });
+        if (sink == 42) System.out.println();
+    }
+}
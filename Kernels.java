@@ -0,0 +1,132 @@
+/**
+* @author Nolan Orloff
+*
+* inner loops over primitive arrays shared by the solvers
+* this class is the plain scalar version; VectorKernels overrides the same
+* methods with SIMD versions written against the jdk.incubator.vector API
+*
+* the version in use is picked once, when the class is loaded, from the
+* "kernels" system property:
+*     java -Dkernels=scalar ...   (the default)
+*     java --add-modules jdk.incubator.vector -Dkernels=vector ...
+* if the vector version is asked for but the module is not available,
+* the scalar version is used and a warning is printed
+*
+* @see VectorKernels.java
+*/
+
+class Kernels {
+    // the version every solver should call
+    private static final Kernels ACTIVE = choose(System.getProperty("kernels", "scalar"));
+
+    /**
+    * get the version of the kernels selected for this run
+    *
+    * @return the scalar or vector kernels
+    */
+    public static Kernels get() {
+        return ACTIVE;
+    }
+
+    /**
+    * load the kernels by name
+    *
+    * @param name "scalar" or "vector"
+    *
+    * @return the kernels, or the scalar kernels if the vector ones can't be loaded
+    */
+    public static Kernels choose(String name) {
+        if (name.equals("scalar")) return new Kernels();
+        if (!name.equals("vector"))
+            throw new IllegalArgumentException("unknown kernels \"" + name + "\"");
+        try {
+            return (Kernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("vector kernels unavailable, using scalar: " + e);
+            return new Kernels();
+        }
+    }
+
+    /**
+    * get the name of these kernels
+    *
+    * @return a short description for reports
+    */
+    public String name() {
+        return "scalar";
+    }
+
+    /**
+    * merge two shortest-path trees, keeping the cheaper entry for every vertex
+    *
+    * @param dist distances to merge into
+    * @param parent parents to merge into, updated wherever dist is
+    * @param otherDist distances to merge from
+    * @param otherParent parents to merge from
+    */
+    public void minMerge(int[] dist, int[] parent, int[] otherDist, int[] otherParent) {
+        for (int i = 0; i < dist.length; i++) {
+            if (otherDist[i] < dist[i]) {
+                dist[i] = otherDist[i];
+                parent[i] = otherParent[i];
+            }
+        }
+    }
+
+    /**
+    * relax a run of edges that all leave the same vertex
+    * the targets may repeat, in which case the cheaper edge wins
+    *
+    * @param dist distances to lower
+    * @param parent parents to update wherever dist is lowered
+    * @param node the vertex the edges leave
+    * @param d the distance of that vertex
+    * @param targets destination of each edge
+    * @param weights cost of each edge
+    * @param lo first edge to relax
+    * @param hi one past the last edge to relax
+    */
+    public void relax(int[] dist, int[] parent, int node, int d, int[] targets, int[] weights, int lo, int hi) {
+        for (int i = lo; i < hi; i++) {
+            int nd = d + weights[i];
+            if (nd < dist[targets[i]]) {
+                dist[targets[i]] = nd;
+                parent[targets[i]] = node;
+            }
+        }
+    }
+
+    /**
+    * find the vertices whose distance went down
+    *
+    * @param before distances before a round
+    * @param after distances after the round
+    * @param out indices where after is lower than before, in increasing order
+    *
+    * @return number of indices written to out
+    */
+    public int compact(int[] before, int[] after, int[] out) {
+        int count = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (after[i] < before[i]) out[count++] = i;
+        }
+        return count;
+    }
+
+    /**
+    * find the cells that are empty in one row and set in another
+    *
+    * @param mine the row to fill in
+    * @param theirs the row to fill in from
+    * @param out indices where mine is 0 and theirs is not, in increasing order
+    *
+    * @return number of indices written to out
+    */
+    public int missing(int[] mine, int[] theirs, int[] out) {
+        int count = 0;
+        for (int i = 0; i < mine.length; i++) {
+            if (mine[i] == 0 && theirs[i] != 0) out[count++] = i;
+        }
+        return count;
+    }
+}
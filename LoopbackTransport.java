@@ -0,0 +1,107 @@
+/**
+* @author Nolan Orloff
+*
+* Transport between shards that run as threads in this process.
+* Stands in for a network transport so the partitioned solver can be run
+* and checked on one machine.
+*
+* Mailboxes are double buffered by superstep parity, so a shard that has
+* already started the next superstep can send without disturbing a shard
+* that is still reading the batches from the last one.
+*
+* sum is combined up a tree the same way Reduce combines tallies:
+* shard i picks up the partial sums of shards i + 1, i + 2, i + 4, ...
+* for as long as i is a multiple of the stride, then hands its own partial
+* sum to its parent. Shard 0 ends up with the total and hands it back out.
+*
+* @see Transport.java
+* @see Reduce.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+public class LoopbackTransport implements Transport {
+    private final int shardP;
+    private final List<List<List<int[]>>> mailboxes;   // [parity][shard] batches
+    private final int[] superstep;                     // superstep each shard is in
+    private final CyclicBarrier barrier;
+    private final List<BlockingQueue<Long>> partial;   // tree cap, one slot per shard
+    private final List<BlockingQueue<Long>> total;     // result handed back to each shard
+
+    /**
+     * Constructor for the LoopbackTransport class.
+     *
+     * @param shardP number of shards
+     */
+    public LoopbackTransport(int shardP) {
+        if (shardP <= 0)
+            throw new IllegalArgumentException("shardP must be positive");
+
+        this.shardP = shardP;
+        this.superstep = new int[shardP];
+        this.barrier = new CyclicBarrier(shardP);
+        this.mailboxes = new ArrayList<List<List<int[]>>>();
+        for (int parity = 0; parity < 2; parity++) {
+            List<List<int[]>> boxes = new ArrayList<List<int[]>>();
+            for (int s = 0; s < shardP; s++)
+                boxes.add(new ArrayList<int[]>());
+            mailboxes.add(boxes);
+        }
+        this.partial = new ArrayList<BlockingQueue<Long>>();
+        this.total = new ArrayList<BlockingQueue<Long>>();
+        for (int s = 0; s < shardP; s++) {
+            partial.add(new ArrayBlockingQueue<Long>(1));
+            total.add(new ArrayBlockingQueue<Long>(1));
+        }
+    }
+
+    @Override
+    public int shards() {
+        return shardP;
+    }
+
+    @Override
+    public void send(int from, int to, int[] batch) {
+        List<int[]> box = mailboxes.get(superstep[from] % 2).get(to);
+        synchronized (box) {
+            box.add(batch);
+        }
+    }
+
+    @Override
+    public List<int[]> exchange(int shard) throws InterruptedException {
+        try {
+            barrier.await();
+        } catch (BrokenBarrierException e) {
+            throw new InterruptedException("another shard stopped: " + e);
+        }
+        List<int[]> box = mailboxes.get(superstep[shard] % 2).get(shard);
+        List<int[]> out;
+        synchronized (box) {
+            out = new ArrayList<int[]>(box);
+            box.clear();
+        }
+        superstep[shard]++;
+        return out;
+    }
+
+    @Override
+    public long sum(int shard, long value) throws InterruptedException {
+        for (int stride = 1; stride < shardP && shard % (2 * stride) == 0; stride *= 2) {
+            if (shard + stride < shardP)
+                value += partial.get(shard + stride).take();
+        }
+        if (shard != 0) {
+            partial.get(shard).put(value);
+            return total.get(shard).take();
+        }
+        for (int s = 1; s < shardP; s++)
+            total.get(s).put(value);
+        return value;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+* @author Nolan Orloff
+*
+* binary min-heap of (key, vertex) pairs packed into longs
+* the key goes in the high 32 bits and the vertex in the low 32 bits, so
+* comparing the packed longs orders entries by key
+* keys and vertices must not be negative
+*
+* there is no decrease-key: searches push a vertex again when its key drops
+* and skip the stale entries when they are popped
+*
+* @see HW8Heap.java
+*/
+
+import java.util.Arrays;
+
+class PackedHeap {
+    private long[] heap;
+    private int size;
+
+    /**
+    * initialize an empty heap
+    *
+    * @param capacity number of entries to make room for up front
+    */
+    public PackedHeap(int capacity) {
+        heap = new long[Math.max(16, capacity)];
+    }
+
+    /**
+    * get the number of entries in the heap, including stale ones
+    *
+    * @return number of entries
+    */
+    public int size() {
+        return size;
+    }
+
+    /**
+    * remove every entry
+    */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+    * add an entry to the heap
+    *
+    * @param key the priority of the entry, lowest first
+    * @param node the vertex
+    */
+    public void push(int key, int node) {
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        long entry = ((long) key << 32) | node;
+        int i = size++;
+        while (i > 0) {
+            int up = (i - 1) / 2;
+            if (heap[up] <= entry) break;
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+    * remove the entry with the lowest key from the heap
+    * unpack it with key() and node()
+    *
+    * @return the packed entry
+    */
+    public long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+    * get the key of a packed entry
+    *
+    * @param entry an entry returned by pop
+    *
+    * @return the entry's key
+    */
+    public static int key(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    /**
+    * get the vertex of a packed entry
+    *
+    * @param entry an entry returned by pop
+    *
+    * @return the entry's vertex
+    */
+    public static int node(long entry) {
+        return (int) entry;
+    }
+}
@@ -0,0 +1,269 @@
+/**
+* @author Nolan Orloff
+*
+* vertex orders that improve memory locality during a search
+* when a vertex is settled, its neighbors' entries in the dist and parent
+* arrays are read and written; if the neighbors have nearby ids those
+* accesses land on the same cache lines instead of jumping around the arrays
+*
+* every order is an array where order[i] is the vertex to place at position i,
+* ready to pass to Graph.relabel
+* edges are treated as undirected when deciding which vertices are neighbors
+*
+* running this class benchmarks each order on a copy of the input graph
+* whose ids have been shuffled, to stand in for arbitrary production ids
+*
+* @see Graph.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Random;
+import java.io.*;
+
+class Reorder {
+    // keep the ids from the input file
+    public static final String NONE = "none";
+
+    // breadth-first order from the lowest unvisited id of each component
+    public static final String BFS = "bfs";
+
+    // reverse Cuthill-McKee
+    public static final String RCM = "rcm";
+
+    // highest degree first
+    public static final String DEGREE = "degree";
+
+    // number of searches to time for each order in the benchmark
+    public static final int NUM_SEARCHES = 200;
+
+    /**
+    * get a vertex order by name
+    *
+    * @param graph the graph to order
+    * @param name one of NONE, BFS, RCM or DEGREE
+    *
+    * @return the vertex to place at each position
+    */
+    public static int[] order(Graph graph, String name) {
+        if (name.equals(NONE)) return identity(graph.n);
+        if (name.equals(BFS)) return bfs(graph);
+        if (name.equals(RCM)) return rcm(graph);
+        if (name.equals(DEGREE)) return degree(graph);
+        throw new IllegalArgumentException("unknown vertex order \"" + name + "\"");
+    }
+
+    /**
+    * get the order that leaves every vertex where it is
+    *
+    * @param num_nodes number of nodes in the graph
+    *
+    * @return 0, 1, ..., num_nodes - 1
+    */
+    public static int[] identity(int num_nodes) {
+        int[] out = new int[num_nodes];
+        for (int i = 0; i < num_nodes; i++) {
+            out[i] = i;
+        }
+        return out;
+    }
+
+    /**
+    * order vertices by a breadth-first traversal
+    * each component starts from its lowest id
+    *
+    * @param graph the graph to order
+    *
+    * @return the vertex to place at each position
+    */
+    public static int[] bfs(Graph graph) {
+        return traverse(graph, graph.reverse(), false);
+    }
+
+    /**
+    * order vertices by reverse Cuthill-McKee
+    * each component starts from its lowest-degree vertex and neighbors are
+    * visited lowest degree first, then the whole order is reversed
+    * this keeps the ids of the two ends of every edge close together
+    *
+    * @param graph the graph to order
+    *
+    * @return the vertex to place at each position
+    */
+    public static int[] rcm(Graph graph) {
+        int[] out = traverse(graph, graph.reverse(), true);
+        for (int i = 0, j = out.length - 1; i < j; i++, j--) {
+            int swap = out[i];
+            out[i] = out[j];
+            out[j] = swap;
+        }
+        return out;
+    }
+
+    /**
+    * order vertices by the number of edges touching them, highest first
+    * the busiest vertices end up packed together at the front of the arrays
+    *
+    * @param graph the graph to order
+    *
+    * @return the vertex to place at each position
+    */
+    public static int[] degree(Graph graph) {
+        final int[] degrees = degrees(graph, graph.reverse());
+        List<Integer> nodes = new ArrayList<Integer>();
+        for (int i = 0; i < graph.n; i++) {
+            nodes.add(i);
+        }
+        Collections.sort(nodes, new Comparator<Integer>() {
+            public int compare(Integer left, Integer right) {
+                return degrees[right] - degrees[left];
+            }
+        });
+        return toArray(nodes);
+    }
+
+    /**
+    * breadth-first traversal over edges in both directions
+    *
+    * @param graph the graph to order
+    * @param reverse the graph with its edges reversed
+    * @param cuthillMcKee start from the lowest-degree vertex and visit
+    *                     neighbors lowest degree first
+    *
+    * @return vertices in the order they were visited
+    */
+    private static int[] traverse(Graph graph, Graph reverse, boolean cuthillMcKee) {
+        final int[] degrees = degrees(graph, reverse);
+        boolean[] visited = new boolean[graph.n];
+        int[] out = new int[graph.n];
+        int head = 0;
+        int tail = 0;
+        Comparator<Integer> byDegree = new Comparator<Integer>() {
+            public int compare(Integer left, Integer right) {
+                return degrees[left] - degrees[right];
+            }
+        };
+        while (tail < graph.n) {
+            int root = -1;
+            for (int i = 0; i < graph.n; i++) {
+                if (!visited[i] && (root < 0 || (cuthillMcKee && degrees[i] < degrees[root])))
+                    root = i;
+                if (root >= 0 && !cuthillMcKee) break;
+            }
+            visited[root] = true;
+            out[tail++] = root;
+            while (head < tail) {
+                int node = out[head++];
+                List<Integer> next = new ArrayList<Integer>();
+                for (Graph g : new Graph[] {graph, reverse}) {
+                    for (int i = g.offsets[node]; i < g.offsets[node + 1]; i++) {
+                        if (!visited[g.targets[i]]) {
+                            visited[g.targets[i]] = true;
+                            next.add(g.targets[i]);
+                        }
+                    }
+                }
+                if (cuthillMcKee) Collections.sort(next, byDegree);
+                for (int i : next) {
+                    out[tail++] = i;
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+    * get the number of edges touching each vertex in either direction
+    *
+    * @param graph the graph
+    * @param reverse the graph with its edges reversed
+    *
+    * @return the degree of each vertex
+    */
+    private static int[] degrees(Graph graph, Graph reverse) {
+        int[] out = new int[graph.n];
+        for (int i = 0; i < graph.n; i++) {
+            out[i] = graph.degree(i) + reverse.degree(i);
+        }
+        return out;
+    }
+
+    /**
+    * copy a list of vertices into an array
+    *
+    * @param nodes the vertices
+    *
+    * @return the same vertices in the same order
+    */
+    private static int[] toArray(List<Integer> nodes) {
+        int[] out = new int[nodes.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = nodes.get(i);
+        }
+        return out;
+    }
+
+    /**
+    * time NUM_SEARCHES full searches from random roots
+    * roots are ids from the input file, so every order answers the same queries
+    *
+    * @param name label for the order in the output
+    * @param graph the graph to search
+    * @param roots the input file ids to search from
+    * @param expected total distance to every vertex over all searches,
+    *                 or -1 to skip the check
+    *
+    * @return total distance to every vertex over all searches
+    */
+    private static long time(String name, Graph graph, int[] roots, long expected) {
+        HW8Heap.Search search = new HW8Heap.Search(graph);
+        for (int i = 0; i < roots.length; i++) {
+            search.solve(roots[i]);
+        }
+        long total = 0;
+        long begin = System.nanoTime();
+        for (int i = 0; i < roots.length; i++) {
+            search.solve(roots[i]);
+            for (int v = 0; v < graph.n; v++) {
+                if (search.dist(v) != HW8Heap.INFINITY) total += search.dist(v);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.println(name + ": " + elapsed / roots.length / 1000 + "us per search"
+            + (expected >= 0 && total != expected ? " (distances differ!)" : ""));
+        return total;
+    }
+
+    /**
+    * benchmark the solve time of each vertex order
+    *
+    * @param args unused
+    */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        Graph loaded = Graph.load();
+        int[] shuffle = identity(loaded.n);
+        Random rand = new Random(0);
+        for (int i = shuffle.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int swap = shuffle[i];
+            shuffle[i] = shuffle[j];
+            shuffle[j] = swap;
+        }
+        Graph shuffled = loaded.relabel(shuffle);
+        // make the shuffled ids the caller-facing ids, as if they came from the file
+        shuffled = new Graph(shuffled.n, shuffled.offsets, shuffled.targets, shuffled.weights);
+
+        int[] roots = new int[NUM_SEARCHES];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = rand.nextInt(loaded.n);
+        }
+        System.out.println(loaded.n + " nodes, " + loaded.edgeCount() + " edges, "
+            + NUM_SEARCHES + " searches per order");
+        long expected = time("shuffled", shuffled, roots, -1);
+        for (String name : new String[] {BFS, RCM, DEGREE}) {
+            time(name, shuffled.relabel(order(shuffled, name)), roots, expected);
+        }
+    }
+}
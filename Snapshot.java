@@ -0,0 +1,191 @@
+/**
+* @author Nolan Orloff
+*
+* binary snapshots of solved shortest-path trees
+* a process that has solved a tree can save it, and a restarted process can
+* map the file back in instead of solving again
+*
+* the file layout is, all big-endian:
+*     int  MAGIC
+*     int  VERSION
+*     long fingerprint of the graph the tree was solved on, see Graph.fingerprint
+*     int  number of vertices
+*     int  root of the tree
+*     int  radius the search was bounded by, HW8Heap.INFINITY for none
+*     int  number of closest vertices the search was bounded to, -1 for none
+*     int  dist of each vertex
+*     int  parent of each vertex
+* a snapshot is only loaded if its fingerprint matches the graph it is loaded for
+* and it was solved with the same bound, so a partial tree is never mistaken
+* for the whole one
+*
+* @see Tree.java
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.io.*;
+
+class Snapshot {
+    // first four bytes of every snapshot file, "SPT1"
+    public static final int MAGIC = 0x53505431;
+
+    // layout version, bumped whenever the layout changes
+    public static final int VERSION = 2;
+
+    // bytes before the dist array
+    public static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4 + 4;
+
+    // size of the write buffer
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+    * write a whole tree to a file
+    *
+    * @param tree the solved tree
+    * @param graph the graph the tree was solved on
+    * @param filename the file to write
+    */
+    public static void write(Tree tree, Graph graph, String filename) throws IOException {
+        write(tree, graph, HW8Heap.INFINITY, -1, filename);
+    }
+
+    /**
+    * write a tree from a bounded search to a file
+    *
+    * @param tree the solved tree
+    * @param graph the graph the tree was solved on
+    * @param radius the radius the search was bounded by, or HW8Heap.INFINITY
+    * @param k the number of closest vertices the search was bounded to, or -1
+    * @param filename the file to write
+    */
+    public static void write(Tree tree, Graph graph, int radius, int k, String filename) throws IOException {
+        FileChannel out = FileChannel.open(Paths.get(filename), StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(graph.fingerprint());
+            buffer.putInt(tree.dist.length);
+            buffer.putInt(tree.start);
+            buffer.putInt(radius);
+            buffer.putInt(k);
+            writeInts(out, buffer, tree.dist);
+            writeInts(out, buffer, tree.parent);
+            drain(out, buffer);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+    * read a whole tree from a file
+    *
+    * @param graph the graph the tree should have been solved on
+    * @param filename the file to read
+    *
+    * @return the tree in the file
+    *
+    * @throws IOException if the file is not a snapshot, is for a different graph, or is a partial tree
+    */
+    public static Tree read(Graph graph, String filename) throws IOException {
+        return read(graph, HW8Heap.INFINITY, -1, filename);
+    }
+
+    /**
+    * read a tree from a bounded search from a file
+    * the file is memory mapped and the arrays are copied out of the mapping in bulk
+    *
+    * @param graph the graph the tree should have been solved on
+    * @param radius the radius the search should have been bounded by, or HW8Heap.INFINITY
+    * @param k the number of closest vertices the search should have been bounded to, or -1
+    * @param filename the file to read
+    *
+    * @return the tree in the file
+    *
+    * @throws IOException if the file is not a snapshot, is for a different graph, or has a different bound
+    */
+    public static Tree read(Graph graph, int radius, int k, String filename) throws IOException {
+        FileChannel in = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            if (in.size() < HEADER_SIZE)
+                throw new IOException(filename + " is too short to be a snapshot");
+            MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (map.getInt() != MAGIC)
+                throw new IOException(filename + " is not a snapshot");
+            int version = map.getInt();
+            if (version != VERSION)
+                throw new IOException(filename + " is snapshot version " + version + ", expected " + VERSION);
+            if (map.getLong() != graph.fingerprint())
+                throw new IOException(filename + " was solved on a different graph");
+            int n = map.getInt();
+            int start = map.getInt();
+            int savedRadius = map.getInt();
+            int savedK = map.getInt();
+            if (savedRadius != radius || savedK != k)
+                throw new IOException(filename + " was solved with " + bound(savedRadius, savedK)
+                    + ", expected " + bound(radius, k));
+            if (n != graph.n || in.size() != HEADER_SIZE + 8L * n)
+                throw new IOException(filename + " is truncated or has the wrong number of vertices");
+            IntBuffer ints = map.asIntBuffer();
+            int[] dist = new int[n];
+            int[] parent = new int[n];
+            ints.get(dist);
+            ints.get(parent);
+            return new Tree(start, dist, parent);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+    * describe the bound on a search for error messages
+    *
+    * @param radius the radius, or HW8Heap.INFINITY
+    * @param k the number of closest vertices, or -1
+    *
+    * @return the bound as it would be given on the command line
+    */
+    private static String bound(int radius, int k) {
+        if (k >= 0) return "-k " + k;
+        if (radius != HW8Heap.INFINITY) return "-r " + radius;
+        return "no bound";
+    }
+
+    /**
+    * copy an array into the buffer, writing the buffer out whenever it fills up
+    *
+    * @param out the file being written
+    * @param buffer the write buffer
+    * @param values the array to write
+    */
+    static void writeInts(FileChannel out, ByteBuffer buffer, int[] values) throws IOException {
+        int next = 0;
+        while (next < values.length) {
+            if (buffer.remaining() < 4) drain(out, buffer);
+            int count = Math.min(values.length - next, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, next, count);
+            buffer.position(buffer.position() + count * 4);
+            next += count;
+        }
+    }
+
+    /**
+    * write everything in the buffer to the file and empty it
+    *
+    * @param out the file being written
+    * @param buffer the write buffer
+    */
+    static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,57 @@
+/**
+* @author Nolan Orloff
+*
+* Interface for moving messages between the shards of a partitioned graph.
+* Shards run in lock step (bulk synchronous supersteps): each shard sends any
+* number of batches, then calls exchange to wait for everyone and pick up the
+* batches addressed to it.
+*
+* An implementation may connect threads in one process, processes on one
+* machine, or machines; the shards only see this interface.
+*
+* @see LoopbackTransport.java
+* @see HW8Distributed.java
+*/
+
+import java.util.List;
+
+public interface Transport {
+
+    /**
+     * Get the number of shards connected by this transport.
+     *
+     * @return number of shards
+     */
+    int shards();
+
+    /**
+     * Queue a batch of values for another shard. It is delivered by the
+     * receiving shard's next call to exchange.
+     *
+     * @param from  the sending shard
+     * @param to    the receiving shard
+     * @param batch the values to deliver; must not be modified after sending
+     */
+    void send(int from, int to, int[] batch);
+
+    /**
+     * End the current superstep. Blocks until every shard has called exchange,
+     * then returns the batches sent to this shard during the superstep.
+     *
+     * @param shard the calling shard
+     * @return batches addressed to the shard, in no particular order
+     * @throws InterruptedException if interrupted while waiting for other shards
+     */
+    List<int[]> exchange(int shard) throws InterruptedException;
+
+    /**
+     * Add up a value from every shard. Every shard must call this the same
+     * number of times, and every shard gets back the same total.
+     *
+     * @param shard the calling shard
+     * @param value this shard's contribution
+     * @return the sum of the values from all shards
+     * @throws InterruptedException if interrupted while waiting for other shards
+     */
+    long sum(int shard, long value) throws InterruptedException;
+}
@@ -0,0 +1,93 @@
+/**
+* @author Nolan Orloff
+*
+* a solved shortest-path tree stored as two arrays indexed by vertex
+* dist[v] is the cost of the shortest path to v, or HW8Heap.INFINITY if v was not reached
+* parent[v] is the previous vertex on that path, v itself for the root, or -1 if v was not reached
+*
+* used by solvers that produce the whole tree at once instead of through a Search,
+* and saved to and loaded from disk by Snapshot
+*
+* @see HW8Heap.java
+*/
+
+import java.util.List;
+import java.util.ArrayList;
+import java.io.*;
+
+class Tree {
+    // root of the tree
+    public final int start;
+
+    // cost of the shortest path to each vertex
+    public final int[] dist;
+
+    // previous vertex on the shortest path to each vertex
+    public final int[] parent;
+
+    /**
+    * initialize the object
+    *
+    * @param start root of the tree
+    * @param dist cost of the shortest path to each vertex
+    * @param parent previous vertex on the shortest path to each vertex
+    */
+    public Tree(int start, int[] dist, int[] parent) {
+        this.start = start;
+        this.dist = dist;
+        this.parent = parent;
+    }
+
+    /**
+    * get the shortest path to a vertex in the same form as HW8 builds them
+    * the first edge is the identity edge at the root
+    *
+    * @param node the destination vertex
+    *
+    * @return the path to the vertex or a path with no edges if it was not reached
+    */
+    public HW8.Path path(int node) {
+        if (dist[node] == HW8Heap.INFINITY) return new HW8.Path();
+        List<Data.Edge> edges = new ArrayList<Data.Edge>();
+        while (node != start) {
+            int prev = parent[node];
+            edges.add(new Data.Edge(prev, node, dist[node] - dist[prev]));
+            node = prev;
+        }
+        edges.add(new Data.Edge(start, start, 0));
+        List<Data.Edge> forward = new ArrayList<Data.Edge>(edges.size());
+        for (int i = edges.size() - 1; i >= 0; i--) {
+            forward.add(edges.get(i));
+        }
+        return new HW8.Path(forward);
+    }
+
+    /**
+    * get every path in the tree
+    *
+    * @return a path to every reached vertex other than the root
+    */
+    public List<HW8.Path> paths() {
+        List<HW8.Path> out = new ArrayList<HW8.Path>();
+        for (int i = 0; i < dist.length; i++) {
+            if (i != start && dist[i] != HW8Heap.INFINITY)
+                out.add(path(i));
+        }
+        return out;
+    }
+
+    /**
+    * write every path in the tree to a stream, one per line
+    * in the same format as HW8.Path.toString
+    *
+    * @param out the stream to write to
+    */
+    public void write(Writer out) throws IOException {
+        for (int i = 0; i < dist.length; i++) {
+            if (i != start && dist[i] != HW8Heap.INFINITY) {
+                path(i).write(out);
+                out.write("\n");
+            }
+        }
+    }
+}
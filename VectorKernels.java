@@ -0,0 +1,119 @@
+/**
+* @author Nolan Orloff
+*
+* SIMD versions of the kernels, using the jdk.incubator.vector API
+* each loop handles as many lanes as the preferred vector species holds
+* and finishes the leftover tail with the scalar loop
+*
+* compiling and running this class needs --add-modules jdk.incubator.vector
+* it is only loaded through Kernels.choose, so the rest of the code builds
+* and runs without the module
+*
+* @see Kernels.java
+*/
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+class VectorKernels extends Kernels {
+    // widest vector of ints the hardware handles well
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+
+    @Override
+    public void minMerge(int[] dist, int[] parent, int[] otherDist, int[] otherParent) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(dist.length); i < bound; i += SPECIES.length()) {
+            IntVector mine = IntVector.fromArray(SPECIES, dist, i);
+            IntVector theirs = IntVector.fromArray(SPECIES, otherDist, i);
+            VectorMask<Integer> lower = theirs.lt(mine);
+            if (lower.anyTrue()) {
+                mine.blend(theirs, lower).intoArray(dist, i);
+                IntVector.fromArray(SPECIES, parent, i)
+                    .blend(IntVector.fromArray(SPECIES, otherParent, i), lower)
+                    .intoArray(parent, i);
+            }
+        }
+        for (; i < dist.length; i++) {
+            if (otherDist[i] < dist[i]) {
+                dist[i] = otherDist[i];
+                parent[i] = otherParent[i];
+            }
+        }
+    }
+
+    /**
+    * the candidate distances and the comparison against the gathered current
+    * distances are done a vector at a time; the few lanes that improve are
+    * written back one at a time, which keeps repeated targets correct
+    */
+    @Override
+    public void relax(int[] dist, int[] parent, int node, int d, int[] targets, int[] weights, int lo, int hi) {
+        IntVector base = IntVector.broadcast(SPECIES, d);
+        int i = lo;
+        for (; i + SPECIES.length() <= hi; i += SPECIES.length()) {
+            IntVector candidate = base.add(IntVector.fromArray(SPECIES, weights, i));
+            IntVector current = IntVector.fromArray(SPECIES, dist, 0, targets, i);
+            VectorMask<Integer> lower = candidate.lt(current);
+            if (!lower.anyTrue()) continue;
+            long lanes = lower.toLong();
+            while (lanes != 0) {
+                int j = i + Long.numberOfTrailingZeros(lanes);
+                lanes &= lanes - 1;
+                int nd = d + weights[j];
+                if (nd < dist[targets[j]]) {
+                    dist[targets[j]] = nd;
+                    parent[targets[j]] = node;
+                }
+            }
+        }
+        super.relax(dist, parent, node, d, targets, weights, i, hi);
+    }
+
+    @Override
+    public int compact(int[] before, int[] after, int[] out) {
+        int count = 0;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(before.length); i < bound; i += SPECIES.length()) {
+            VectorMask<Integer> lower = IntVector.fromArray(SPECIES, after, i)
+                .lt(IntVector.fromArray(SPECIES, before, i));
+            if (!lower.anyTrue()) continue;
+            long lanes = lower.toLong();
+            while (lanes != 0) {
+                out[count++] = i + Long.numberOfTrailingZeros(lanes);
+                lanes &= lanes - 1;
+            }
+        }
+        for (; i < before.length; i++) {
+            if (after[i] < before[i]) out[count++] = i;
+        }
+        return count;
+    }
+
+    @Override
+    public int missing(int[] mine, int[] theirs, int[] out) {
+        int count = 0;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(mine.length); i < bound; i += SPECIES.length()) {
+            VectorMask<Integer> empty = IntVector.fromArray(SPECIES, mine, i).compare(VectorOperators.EQ, 0);
+            VectorMask<Integer> set = IntVector.fromArray(SPECIES, theirs, i).compare(VectorOperators.NE, 0);
+            VectorMask<Integer> both = empty.and(set);
+            if (!both.anyTrue()) continue;
+            long lanes = both.toLong();
+            while (lanes != 0) {
+                out[count++] = i + Long.numberOfTrailingZeros(lanes);
+                lanes &= lanes - 1;
+            }
+        }
+        for (; i < mine.length; i++) {
+            if (mine[i] == 0 && theirs[i] != 0) out[count++] = i;
+        }
+        return count;
+    }
+}